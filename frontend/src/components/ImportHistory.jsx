@@ -43,6 +43,7 @@ const ImportHistory = () => {
                     <th>Date</th>
                     <th>Status</th>
                     <th>Imported Count</th>
+                    <th>Throughput</th>
                     <th>Details</th>
                     <th>File</th>
                 </tr>
@@ -52,8 +53,9 @@ const ImportHistory = () => {
                     <tr key={item.id}>
                         <td>{item.id}</td>
                         <td>{new Date(item.importDate).toLocaleString()}</td>
-                        <td style={{ color: item.status === 'SUCCESS' ? 'green' : 'red' }}>{item.status}</td>
+                        <td style={{ color: item.status === 'SUCCESS' ? 'green' : item.status === 'FAILURE' ? 'red' : 'orange' }}>{item.status}</td>
                         <td>{item.status === 'SUCCESS' ? item.importedCount : 'N/A'}</td>
+                        <td>{item.rowsPerSecond != null ? `${Math.round(item.rowsPerSecond)} rows/s` : '-'}</td>
                         <td style={{maxWidth: '300px', overflowWrap: 'break-word'}}>{item.details}</td>
 
                         <td>
@@ -73,7 +75,7 @@ const ImportHistory = () => {
                     </tr>
                 )) : (
                     <tr>
-                        <td colSpan="6">No import history found.</td>
+                        <td colSpan="7">No import history found.</td>
                     </tr>
                 )}
                 </tbody>
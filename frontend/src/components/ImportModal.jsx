@@ -14,15 +14,17 @@ const ImportModal = ({ onClose, onImportSuccess }) => {
     const handleSubmit = async (e) => {
         e.preventDefault();
         if (!file) {
-            setError('Please select a JSON file to import.');
+            setError('Please select a JSON, NDJSON or CSV file to import.');
             return;
         }
 
         setIsUploading(true);
         setError('');
         try {
-            await importMovies(file);
-            alert('File import successful!');
+            const response = await importMovies(file);
+            alert(response.data.duplicate
+                ? response.data.message
+                : `Import job #${response.data.jobId} accepted. Progress is shown in Import History.`);
             onImportSuccess();
             onClose();
         } catch (err) {
@@ -43,8 +45,8 @@ const ImportModal = ({ onClose, onImportSuccess }) => {
                 </div>
                 <form onSubmit={handleSubmit}>
                     <div className="form-group">
-                        <label>JSON File</label>
-                        <input type="file" accept=".json" onChange={handleFileChange} />
+                        <label>File (JSON, NDJSON or CSV, optionally gzip/zstd)</label>
+                        <input type="file" accept=".json,.ndjson,.jsonl,.csv,.gz,.zst" onChange={handleFileChange} />
                     </div>
                     {error && <p style={{ color: 'red' }}>{error}</p>}
                     <div className="form-actions">
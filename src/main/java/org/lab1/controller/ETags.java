@@ -0,0 +1,50 @@
+package org.lab1.controller;
+
+/**
+ * ETag фильма - его {@code @Version}: представление меняется только вместе с версией.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Есть ли версия среди тегов заголовка If-None-Match; слабые теги сравниваются по значению.
+     */
+    static boolean matches(String header, int version) {
+        if (header == null) {
+            return false;
+        }
+        for (String tag : header.split(",")) {
+            String value = tag.trim();
+            if (value.equals("*") || stripWeak(value).equals(of(version))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Версия из If-Match. Для сравнения при записи допустим только один сильный тег.
+     * @return {@code null}, если тег не является версией фильма.
+     */
+    static Integer parseVersion(String header) {
+        String value = header.trim();
+        if (value.length() < 3 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -1,6 +1,11 @@
 package org.lab1.controller;
 
+import org.lab1.exception.ImportNotResumableException;
+import org.lab1.exception.InvalidCursorException;
+import org.lab1.exception.ImportRejectedException;
 import org.lab1.exception.MovieNotFoundException;
+import org.lab1.exception.MovieVersionMismatchException;
+import org.lab1.exception.UnsupportedImportFormatException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -18,6 +23,31 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(MovieVersionMismatchException.class)
+    public ResponseEntity<Map<String, String>> handleMovieVersionMismatchException(MovieVersionMismatchException ex) {
+        return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(ImportRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleImportRejectedException(ImportRejectedException ex) {
+        return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ImportNotResumableException.class)
+    public ResponseEntity<Map<String, String>> handleImportNotResumableException(ImportNotResumableException ex) {
+        return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(UnsupportedImportFormatException.class)
+    public ResponseEntity<Map<String, String>> handleUnsupportedImportFormatException(UnsupportedImportFormatException ex) {
+        return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursorException(InvalidCursorException ex) {
+        return new ResponseEntity<>(Map.of("error", ex.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = ex.getBindingResult().getFieldErrors().stream()
@@ -2,8 +2,14 @@ package org.lab1.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.lab1.dto.ImportHistoryDto;
+import org.lab1.enums.ImportCommitMode;
+import org.lab1.enums.InvalidRowPolicy;
 import org.lab1.mapper.DtoMapper;
+import org.lab1.exception.ImportRejectedException;
+import org.lab1.exception.UnsupportedImportFormatException;
+import org.lab1.service.ImportJobService;
 import org.lab1.service.ImportService;
+import org.lab1.service.ImportSubmission;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -11,6 +17,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 
@@ -20,24 +27,66 @@ import java.util.Map;
 public class ImportController {
 
     private final ImportService importService;
+    private final ImportJobService importJobService;
 
     @PostMapping(consumes = "multipart/form-data")
-    public ResponseEntity<Map<String, String>> importMovies(
+    public ResponseEntity<Map<String, Object>> importMovies(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "simulateError", defaultValue = "false") boolean simulateError
+            @RequestParam(value = "simulateError", defaultValue = "false") boolean simulateError,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "mode", defaultValue = "ATOMIC") ImportCommitMode mode,
+            @RequestParam(value = "onInvalid", defaultValue = "ABORT") InvalidRowPolicy onInvalid
     ) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
         }
         try {
-            // Передаем флаг в сервис
-            importService.importMoviesFromJson(file, simulateError);
-            return ResponseEntity.ok(Map.of("message", "File imported successfully"));
+            // Импорт выполняется в фоне, клиент следит за ним по jobId и событиям import-progress
+            ImportSubmission submission = importJobService.submit(file, simulateError, format, mode, onInvalid);
+            Long jobId = submission.job().getId();
+            if (submission.duplicate()) {
+                return ResponseEntity.ok()
+                        .location(URI.create("/api/import/jobs/" + jobId))
+                        .body(Map.of(
+                                "jobId", jobId,
+                                "duplicate", true,
+                                "status", submission.job().getStatus(),
+                                "message", "File with the same content was already imported (job " + jobId + ")"));
+            }
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/import/jobs/" + jobId))
+                    .body(Map.of("jobId", jobId, "message", "Import job accepted"));
+        } catch (ImportRejectedException | UnsupportedImportFormatException e) {
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(Map.of("error", "Import failed: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ImportHistoryDto> getJob(@PathVariable Long jobId) {
+        return importService.getImportJob(jobId)
+                .map(DtoMapper::toImportHistoryDto)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeJob(
+            @PathVariable Long jobId,
+            @RequestParam(value = "force", defaultValue = "false") boolean force
+    ) {
+        return importService.getImportJob(jobId)
+                .map(job -> importJobService.resume(job, force))
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/import/jobs/" + jobId))
+                        .<Map<String, Object>>body(Map.of(
+                                "jobId", jobId,
+                                "resumeFrom", job.getCheckpointIndex() != null ? job.getCheckpointIndex() : 0,
+                                "message", "Import job resumed")))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/history")
     public ResponseEntity<List<ImportHistoryDto>> getHistory() {
         return ResponseEntity.ok(DtoMapper.toImportHistoryDtoList(importService.getImportHistory()));
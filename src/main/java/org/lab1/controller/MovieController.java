@@ -3,11 +3,15 @@ package org.lab1.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.lab1.dto.MovieDto;
+import org.lab1.enums.CountMode;
+import org.lab1.service.MovieJson;
 import org.lab1.service.MovieService;
+import org.lab1.service.VersionedMovie;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 
@@ -20,19 +24,46 @@ public class MovieController {
 
     private final MovieService movieService;
 
+    /**
+     * По умолчанию - постраничный вывод со смещением. С {@code paging=cursor} - курсорная пагинация:
+     * размер и сортировка берутся из {@code size} и {@code sort}, позиция - из токена {@code cursor},
+     * общее количество - по {@code count} (none, exact или estimate).
+     */
     @GetMapping
-    public ResponseEntity<Page<MovieDto>> getAllMovies(
+    public ResponseEntity<?> getAllMovies(
             Pageable pageable,
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String genre,
-            @RequestParam(required = false) String directorName
+            @RequestParam(required = false) String directorName,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "NONE") CountMode count
     ) {
+        if ("cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(movieService.scrollMovies(cursor, pageable.getPageSize(), pageable.getSort(),
+                    count, name, genre, directorName));
+        }
         return ResponseEntity.ok(movieService.findAllMovies(pageable, name, genre, directorName));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<MovieDto> getMovieById(@PathVariable Integer id) {
-        return ResponseEntity.ok(movieService.findMovieById(id));
+    public ResponseEntity<byte[]> getMovieById(
+            @PathVariable Integer id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        VersionedMovie movie = movieService.findMovieIfModified(id, version -> ETags.matches(ifNoneMatch, version));
+        if (movie.movie() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(movie.version())).build();
+        }
+        return ResponseEntity.ok().eTag(ETags.of(movie.version()))
+                .contentType(MediaType.APPLICATION_JSON).body(movie.movie().utf8());
+    }
+
+    @GetMapping("/by-name/{name}")
+    public ResponseEntity<byte[]> getMovieByName(@PathVariable String name) {
+        MovieJson movie = movieService.findMovieByName(name);
+        return ResponseEntity.ok().eTag(ETags.of(movie.getVersion()))
+                .contentType(MediaType.APPLICATION_JSON).body(movie.utf8());
     }
 
     @PostMapping
@@ -41,9 +72,27 @@ public class MovieController {
         return new ResponseEntity<>(createdMovie, HttpStatus.CREATED);
     }
 
+    /**
+     * С заголовком If-Match фильм изменяется, только если его версия совпадает с тегом, иначе 412.
+     * Без заголовка (или с {@code *}) - безусловное изменение.
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<MovieDto> updateMovie(@PathVariable Integer id, @Valid @RequestBody MovieDto movieDto) {
-        return ResponseEntity.ok(movieService.updateMovie(id, movieDto));
+    public ResponseEntity<MovieDto> updateMovie(
+            @PathVariable Integer id,
+            @Valid @RequestBody MovieDto movieDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
+        MovieDto updated;
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            updated = movieService.updateMovie(id, movieDto);
+        } else {
+            Integer expectedVersion = ETags.parseVersion(ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+            updated = movieService.updateMovieIfVersion(id, expectedVersion, movieDto);
+        }
+        return ResponseEntity.ok().eTag(ETags.of(updated.getVersion())).body(updated);
     }
 
     @DeleteMapping("/{id}")
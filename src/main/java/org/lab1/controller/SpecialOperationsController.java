@@ -1,14 +1,13 @@
 package org.lab1.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.lab1.dto.MovieDto;
-import org.lab1.dto.PersonDto;
 import org.lab1.enums.MovieGenre;
 import org.lab1.service.MovieService;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -30,14 +29,35 @@ public class SpecialOperationsController {
         return ResponseEntity.ok(Map.of("totalGoldenPalms", sum));
     }
 
+    // Восстановление агрегатов после ручных правок базы
+    @PostMapping("/golden-palm-sum/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildGoldenPalmSum() {
+        long sum = movieService.rebuildAggregates();
+        return ResponseEntity.ok(Map.of("totalGoldenPalms", sum));
+    }
+
     @GetMapping("/tagline")
-    public ResponseEntity<List<MovieDto>> findByTagline(@RequestParam String contains) {
-        return ResponseEntity.ok(movieService.findByTagline(contains));
+    public ResponseEntity<?> findByTagline(
+            @RequestParam String contains,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        if (page == null) {
+            return ResponseEntity.ok(movieService.findByTagline(contains));
+        }
+        return ResponseEntity.ok(movieService.findByTagline(contains, PageRequest.of(page, size, Sort.by("id"))));
     }
 
     @GetMapping("/screenwriters-no-oscars")
-    public ResponseEntity<List<PersonDto>> findScreenwritersWithoutOscars() {
-        return ResponseEntity.ok(movieService.findScreenwritersWithoutOscars());
+    public ResponseEntity<?> findScreenwritersWithoutOscars(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        // Без page возвращается полный список, как раньше; с page - страница с общим количеством
+        if (page == null) {
+            return ResponseEntity.ok(movieService.findScreenwritersWithoutOscars());
+        }
+        return ResponseEntity.ok(movieService.findScreenwritersWithoutOscars(PageRequest.of(page, size, Sort.by("id"))));
     }
 
     @PostMapping("/redistribute-oscars")
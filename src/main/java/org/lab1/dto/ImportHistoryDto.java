@@ -1,6 +1,8 @@
 package org.lab1.dto;
 
 import lombok.Data;
+import org.lab1.enums.ImportCommitMode;
+import org.lab1.enums.InvalidRowPolicy;
 import java.time.LocalDateTime;
 
 @Data
@@ -11,4 +13,13 @@ public class ImportHistoryDto {
     private Integer importedCount;
     private String details;
     private String objectName;
+    private Long durationMs;
+    private Double rowsPerSecond;
+    private String contentHash;
+    private String format;
+    private ImportCommitMode commitMode;
+    private InvalidRowPolicy invalidRowPolicy;
+    private Integer checkpointIndex;
+    private Integer skippedCount;
+    private String errorReportObject;
 }
\ No newline at end of file
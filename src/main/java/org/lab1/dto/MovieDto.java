@@ -13,6 +13,9 @@ import org.lab1.enums.MpaaRating;
 public class MovieDto {
     private Integer id;
 
+    // Только для чтения: версия изменяется сервером, при записи условие задаётся заголовком If-Match
+    private Integer version;
+
     @NotBlank(message = "Movie name cannot be empty")
     private String name;
 
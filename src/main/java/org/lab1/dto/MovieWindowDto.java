@@ -0,0 +1,23 @@
+package org.lab1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Порция фильмов при курсорной пагинации.
+ * {@code nextCursor} передаётся в следующий запрос; {@code null}, если фильмов больше нет.
+ * {@code totalElements} заполняется только по запросу, {@code totalEstimated} - если это оценка по статистике.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieWindowDto {
+    private List<MovieDto> content;
+    private String nextCursor;
+    private boolean hasNext;
+    private Long totalElements;
+    private boolean totalEstimated;
+}
@@ -0,0 +1,2 @@
+package org.lab1.enums;
+public enum ImportCommitMode { ATOMIC, CHUNKED; }
@@ -0,0 +1,7 @@
+package org.lab1.exception;
+
+public class ImportNotResumableException extends RuntimeException {
+    public ImportNotResumableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.lab1.exception;
+
+public class ImportRejectedException extends RuntimeException {
+    public ImportRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.lab1.exception;
+
+public class MovieVersionMismatchException extends RuntimeException {
+    public MovieVersionMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,284 @@
+package org.lab1.importer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.lab1.dto.MovieDto;
+import org.lab1.mapper.DtoMapper;
+import org.lab1.model.Movie;
+import org.lab1.repository.ImportHistoryRepository;
+import org.lab1.repository.LocationRepository;
+import org.lab1.repository.MovieRepository;
+import org.lab1.repository.PersonRepository;
+import org.lab1.service.MinioService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Валидирует и сохраняет фильмы порциями фиксированного размера.
+ * Порции пишутся через {@link MovieBulkLoader} мимо контекста персистентности,
+ * поэтому потребление памяти зависит от размера порции, а не файла.
+ * Следующая порция валидируется параллельно в отдельном пуле, пока сохраняется текущая.
+ * Повторы названий внутри файла и совпадения с существующими фильмами отсеиваются
+ * при валидации, до обращения к уникальному индексу базы. Если некорректные записи не пропускаются,
+ * после первой ошибки файл дочитывается без записи, и обо всех ошибках сообщается сразу.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChunkedMovieImporter {
+
+    /** Сколько ошибок валидации перечисляется в сообщении о неудачном импорте. */
+    private static final int MAX_LISTED_FAILURES = 100;
+
+    private final MovieBulkLoader movieBulkLoader;
+    private final Validator validator;
+    private final PersonRepository personRepository;
+    private final LocationRepository locationRepository;
+    private final MovieRepository movieRepository;
+    private final ImportHistoryRepository importHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MinioService minioService;
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.import.interner-cache-size:20000}")
+    private int internerCacheSize;
+
+    @Value("${app.import.name-check-size:200000}")
+    private int nameCheckSize;
+
+    @Value("${app.import.validation-parallelism:0}")
+    private int validationParallelism;
+
+    private ForkJoinPool validationPool;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = validationParallelism > 0 ? validationParallelism : Runtime.getRuntime().availableProcessors();
+        validationPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationPool.shutdown();
+    }
+
+    /**
+     * Импортирует весь файл в одной транзакции: любая ошибка откатывает все порции.
+     * @param pendingUpload загрузка исходного файла в MinIO, идущая параллельно с разбором.
+     *                      Транзакция фиксируется только после её успешного завершения.
+     * @param progress      получает общее число сохранённых строк после каждой порции.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ImportResult importAtomically(MovieRecordReader reader, ImportOptions options, ImportErrorReport report,
+                                         CompletableFuture<?> pendingUpload, IntConsumer progress) throws IOException {
+        ImportResult result = run(reader, options, report, progress, (movies, state) -> movieBulkLoader.load(movies));
+        pendingUpload.join();
+        if (result.imported() > 0) {
+            movieBulkLoader.evictCacheRegionsAfterCommit();
+        }
+        return result;
+    }
+
+    /**
+     * Фиксирует каждую порцию в отдельной транзакции вместе с контрольной точкой задачи,
+     * поэтому после сбоя импорт продолжается с первой незафиксированной порции.
+     * Отчёт о пропущенных записях выгружается в MinIO перед фиксацией каждой порции, в которой он пополнился.
+     * Первая порция фиксируется только после загрузки файла в MinIO, иначе возобновлять было бы не из чего.
+     */
+    public ImportResult importInChunks(MovieRecordReader reader, ImportOptions options, ImportErrorReport report,
+                                       CompletableFuture<?> pendingUpload, IntConsumer progress) throws IOException {
+        try {
+            ImportResult result = run(reader, options, report, progress, (movies, state) -> {
+                pendingUpload.join();
+                // Отчёт выгружается до фиксации, чтобы пропущенные записи не потерялись при падении процесса.
+                // Строки после контрольной точки, если фиксация не состоится, отбрасываются при возобновлении
+                if (report.hasUnpublished()) {
+                    report.flush();
+                    minioService.uploadFile(options.errorReportObject(), report.getPath(), ImportErrorReport.CONTENT_TYPE);
+                    report.markPublished();
+                }
+                String checkpointReport = report.getCount() > 0 ? options.errorReportObject() : null;
+                transactionTemplate.executeWithoutResult(status -> {
+                    movieBulkLoader.load(movies);
+                    importHistoryRepository.updateCheckpoint(options.jobId(),
+                            state.processed(), state.imported(), state.skipped(), checkpointReport);
+                });
+            });
+            pendingUpload.join();
+            return result;
+        } finally {
+            // Зафиксированные порции остаются в базе и при сбое, кэш сбрасывается в любом случае
+            movieBulkLoader.evictCacheRegionsAfterCommit();
+        }
+    }
+
+    private ImportResult run(MovieRecordReader reader, ImportOptions options, ImportErrorReport report,
+                             IntConsumer progress, ChunkSink sink) throws IOException {
+        int processed = reader.skip(options.resumeFrom());
+        if (processed < options.resumeFrom()) {
+            throw new IOException("File has only " + processed + " records, cannot resume from " + options.resumeFrom());
+        }
+        int imported = options.imported();
+        int skipped = options.skipped();
+
+        ImportInterner interner = new ImportInterner(personRepository, locationRepository, internerCacheSize);
+        MovieNameChecker nameChecker = new MovieNameChecker(movieRepository, nameCheckSize);
+        List<String> failures = new ArrayList<>();
+        int failureCount = 0;
+        PendingChunk current = readAndValidate(reader, processed);
+        while (current != null) {
+            // Пока сохраняется текущая порция, следующая уже разбирается и валидируется.
+            // Ошибка чтения следующей порции откладывается: сначала сообщается об ошибках текущей
+            PendingChunk next = null;
+            Exception readError = null;
+            try {
+                next = readAndValidate(reader, current.offset() + current.items().size());
+            } catch (IOException | RuntimeException e) {
+                readError = e;
+            }
+            // Названия проверяются по порядку порций, поэтому не в пуле валидации
+            String[] errors = current.validation().join();
+            nameChecker.check(current.items(), errors);
+            List<MovieDto> valid;
+            if (options.skipInvalid()) {
+                valid = current.validItems(errors, report);
+            } else {
+                failureCount += current.collectFailures(errors, failures);
+                // После первой ошибки файл уже не будет принят: порции только проверяются,
+                // чтобы сообщить обо всех ошибках сразу, и в базу не пишутся
+                valid = failureCount == 0 ? current.items() : null;
+            }
+            if (valid != null) {
+                List<Movie> movies = valid.stream().map(DtoMapper::toMovieEntity).collect(Collectors.toList());
+                interner.intern(movies);
+                processed += current.items().size();
+                imported += movies.size();
+                skipped += current.items().size() - movies.size();
+                sink.accept(movies, new ImportResult(processed, imported, skipped));
+                progress.accept(imported);
+            }
+            if (readError != null) {
+                rethrow(readError);
+            }
+            current = next;
+        }
+        if (failureCount > 0) {
+            throw validationFailed(failures, failureCount);
+        }
+        return new ImportResult(processed, imported, skipped);
+    }
+
+    private PendingChunk readAndValidate(MovieRecordReader reader, int offset) throws IOException {
+        if (!reader.hasNext()) {
+            return null;
+        }
+        RecordChunk chunk = reader.readChunk(chunkSize);
+        List<MovieDto> items = chunk.items();
+        String[] bindErrors = chunk.bindErrors();
+        CompletableFuture<String[]> errors = CompletableFuture.supplyAsync(
+                () -> validateChunk(items, bindErrors), validationPool);
+        return new PendingChunk(items, offset, errors);
+    }
+
+    /**
+     * Валидирует элементы порции параллельно.
+     * Неразобранные элементы ({@code null}) уже описаны в {@code bindErrors} и пропускаются.
+     * @return описания ошибок по индексам элементов, {@code null} для корректных.
+     */
+    private String[] validateChunk(List<MovieDto> chunk, String[] bindErrors) {
+        String[] errors = new String[chunk.size()];
+        IntStream.range(0, chunk.size()).parallel().filter(i -> chunk.get(i) != null).forEach(i -> {
+            Set<ConstraintViolation<MovieDto>> violations = validator.validate(chunk.get(i));
+            if (!violations.isEmpty()) {
+                errors[i] = violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                        .collect(Collectors.joining("; "));
+            }
+        });
+        merge(errors, bindErrors);
+        return errors;
+    }
+
+    private static RuntimeException validationFailed(List<String> failures, int failureCount) {
+        String listed = String.join(" | ", failures);
+        if (failureCount > failures.size()) {
+            listed += " | ... and " + (failureCount - failures.size()) + " more";
+        }
+        return new RuntimeException("Validation failed for " + failureCount + " item(s): " + listed);
+    }
+
+    private static void rethrow(Exception e) throws IOException {
+        if (e instanceof IOException ioException) {
+            throw ioException;
+        }
+        throw (RuntimeException) e;
+    }
+
+    private static void merge(String[] errors, String[] more) {
+        for (int i = 0; i < errors.length; i++) {
+            if (more[i] != null) {
+                errors[i] = errors[i] == null ? more[i] : errors[i] + "; " + more[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkSink {
+        /**
+         * @param state итог импорта с учётом этой порции.
+         */
+        void accept(List<Movie> movies, ImportResult state) throws IOException;
+    }
+
+    private record PendingChunk(List<MovieDto> items, int offset, CompletableFuture<String[]> validation) {
+
+        /**
+         * Добавляет описания некорректных элементов порции в порядке их следования в файле,
+         * пока в списке меньше {@link #MAX_LISTED_FAILURES} записей.
+         * @return число некорректных элементов порции.
+         */
+        int collectFailures(String[] errors, List<String> failures) {
+            int count = 0;
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    count++;
+                    if (failures.size() < MAX_LISTED_FAILURES) {
+                        failures.add("item " + (offset + i) + ": " + errors[i]);
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Возвращает корректные элементы, а некорректные записывает в отчёт.
+         */
+        List<MovieDto> validItems(String[] errors, ImportErrorReport report) throws IOException {
+            List<MovieDto> valid = new ArrayList<>(items.size());
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] == null) {
+                    valid.add(items.get(i));
+                } else {
+                    report.add(offset + i, errors[i]);
+                }
+            }
+            return valid;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.lab1.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Отчёт о пропущенных записях импорта в формате NDJSON: одна строка
+ * {@code {"item": <индекс>, "errors": "<описание>"}} на запись.
+ * Пишется во временный файл, который удаляется при закрытии.
+ */
+public class ImportErrorReport implements Closeable {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    @Getter
+    private final Path path;
+    private final BufferedWriter writer;
+    @Getter
+    private int count;
+    // Число строк в последней выгруженной копии отчёта; -1, если выгруженная копия устарела
+    private int publishedCount;
+
+    /**
+     * @param previous   отчёт предыдущего запуска той же задачи, продолжается новыми строками; может быть {@code null}.
+     * @param resumeFrom контрольная точка, с которой продолжается импорт. Строки предыдущего отчёта
+     *                   о записях после неё отбрасываются: эти записи будут обработаны заново.
+     */
+    public ImportErrorReport(InputStream previous, int resumeFrom) throws IOException {
+        this.path = Files.createTempFile("movie-import-", ".errors.ndjson");
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        boolean dropped = false;
+        if (previous != null) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(previous, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    if (mapper.readTree(line).path("item").asInt() < resumeFrom) {
+                        writer.write(line);
+                        writer.newLine();
+                        count++;
+                    } else {
+                        dropped = true;
+                    }
+                }
+            } catch (IOException e) {
+                writer.close();
+                Files.deleteIfExists(path);
+                throw e;
+            }
+        }
+        this.publishedCount = dropped ? -1 : count;
+    }
+
+    public synchronized void add(int item, String errors) throws IOException {
+        writer.write(mapper.writeValueAsString(Map.of("item", item, "errors", errors)));
+        writer.newLine();
+        count++;
+    }
+
+    /**
+     * @return {@code true}, если с последней выгрузки в отчёт добавлены строки.
+     */
+    public synchronized boolean hasUnpublished() {
+        return count != publishedCount;
+    }
+
+    public synchronized void markPublished() {
+        publishedCount = count;
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
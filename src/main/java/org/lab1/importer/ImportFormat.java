@@ -0,0 +1,84 @@
+package org.lab1.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdInputStream;
+import org.lab1.exception.UnsupportedImportFormatException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Поддерживаемые форматы файлов импорта. Сжатие gzip и zstd распознаётся по сигнатуре
+ * и снимается потоково, поэтому не зависит от выбранного формата.
+ */
+public enum ImportFormat {
+    JSON,
+    NDJSON,
+    CSV;
+
+    private static final int GZIP_MAGIC_0 = 0x1F;
+    private static final int GZIP_MAGIC_1 = 0x8B;
+    private static final byte[] ZSTD_MAGIC = {0x28, (byte) 0xB5, 0x2F, (byte) 0xFD};
+
+    /**
+     * Определяет формат: явно указанный клиентом, иначе по расширению файла
+     * (без учёта {@code .gz}/{@code .zst}), иначе по Content-Type, по умолчанию JSON.
+     * @throws UnsupportedImportFormatException если клиент указал неизвестный формат.
+     */
+    public static ImportFormat detect(String requested, String filename, String contentType) {
+        if (requested != null && !requested.isBlank()) {
+            String name = requested.trim().toUpperCase(Locale.ROOT);
+            return Arrays.stream(values())
+                    .filter(format -> format.name().equals(name))
+                    .findFirst()
+                    .orElseThrow(() -> new UnsupportedImportFormatException("Unsupported import format: " + requested));
+        }
+        String name = filename == null ? "" : filename.toLowerCase(Locale.ROOT);
+        name = name.replaceFirst("\\.(gz|gzip|zst|zstd)$", "");
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.contains("ndjson") || type.contains("jsonl")) {
+            return NDJSON;
+        }
+        if (type.contains("csv")) {
+            return CSV;
+        }
+        return JSON;
+    }
+
+    /**
+     * Открывает поток записей поверх (возможно сжатого) содержимого файла.
+     */
+    public MovieRecordReader open(InputStream raw, ObjectMapper mapper) throws IOException {
+        InputStream content = decompress(raw);
+        return switch (this) {
+            case JSON -> new MovieJsonReader(mapper, content, false);
+            case NDJSON -> new MovieJsonReader(mapper, content, true);
+            case CSV -> new MovieCsvReader(mapper, content);
+        };
+    }
+
+    private static InputStream decompress(InputStream raw) throws IOException {
+        InputStream in = raw.markSupported() ? raw : new BufferedInputStream(raw);
+        in.mark(ZSTD_MAGIC.length);
+        byte[] header = in.readNBytes(ZSTD_MAGIC.length);
+        in.reset();
+
+        if (header.length >= 2 && (header[0] & 0xFF) == GZIP_MAGIC_0 && (header[1] & 0xFF) == GZIP_MAGIC_1) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        if (header.length == ZSTD_MAGIC.length && Arrays.equals(header, ZSTD_MAGIC)) {
+            return new BufferedInputStream(new ZstdInputStream(in), 64 * 1024);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,106 @@
+package org.lab1.importer;
+
+import org.lab1.model.Location;
+import org.lab1.model.Movie;
+import org.lab1.model.NaturalKeys;
+import org.lab1.model.Person;
+import org.lab1.repository.LocationRepository;
+import org.lab1.repository.PersonRepository;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Сводит одинаковых людей и одинаковые локации одного импорта к единственному экземпляру.
+ * Живёт в течение одного импорта: недавно встреченные значения берутся из памяти,
+ * а новые ключи каждой порции проверяются в базе одним запросом на таблицу.
+ * Найденные в базе сущности получают id, и {@link MovieBulkLoader} их не вставляет.
+ * Память ограничена: из кэша вытесняются давно не встречавшиеся значения, и при повторе
+ * они снова находятся в базе, куда их уже записала одна из прошлых порций.
+ */
+public class ImportInterner {
+
+    private final PersonRepository personRepository;
+    private final LocationRepository locationRepository;
+
+    private final Map<String, Person> persons;
+    private final Map<String, Location> locations;
+
+    /**
+     * @param maxEntries предельное число людей и, отдельно, локаций, хранимых между порциями.
+     */
+    public ImportInterner(PersonRepository personRepository, LocationRepository locationRepository, int maxEntries) {
+        this.personRepository = personRepository;
+        this.locationRepository = locationRepository;
+        this.persons = lruMap(maxEntries);
+        this.locations = lruMap(maxEntries);
+    }
+
+    public void intern(List<Movie> movies) {
+        Map<String, Person> newPersons = new HashMap<>();
+        Map<String, Location> newLocations = new HashMap<>();
+        for (Movie movie : movies) {
+            movie.setDirector(internPerson(movie.getDirector(), newPersons, newLocations));
+            movie.setScreenwriter(internPerson(movie.getScreenwriter(), newPersons, newLocations));
+            movie.setOperator(internPerson(movie.getOperator(), newPersons, newLocations));
+        }
+        if (!newLocations.isEmpty()) {
+            resolveExisting(newLocations, locationRepository.findIdsByNaturalKeys(newLocations.keySet()), Location::setId);
+        }
+        if (!newPersons.isEmpty()) {
+            resolveExisting(newPersons, personRepository.findIdsByNaturalKeys(newPersons.keySet()), Person::setId);
+        }
+        locations.putAll(newLocations);
+        persons.putAll(newPersons);
+    }
+
+    private Person internPerson(Person person, Map<String, Person> newPersons, Map<String, Location> newLocations) {
+        if (person == null) return null;
+        person.setId(null);
+        Location location = person.getLocation();
+        if (location != null) {
+            location.setId(null);
+            String locationKey = NaturalKeys.of(location);
+            location.setNaturalKey(locationKey);
+            person.setLocation(intern(locationKey, location, locations, newLocations));
+        }
+        String personKey = NaturalKeys.of(person);
+        person.setNaturalKey(personKey);
+        return intern(personKey, person, persons, newPersons);
+    }
+
+    // Новые значения порции хранятся отдельно от кэша и не вытесняются до её записи:
+    // иначе два экземпляра одного человека попали бы в одну вставку
+    private static <T> T intern(String key, T value, Map<String, T> known, Map<String, T> newValues) {
+        T existing = newValues.get(key);
+        if (existing == null) {
+            existing = known.get(key);
+        }
+        if (existing != null) {
+            return existing;
+        }
+        newValues.put(key, value);
+        return value;
+    }
+
+    private static <T> Map<String, T> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private static <T> void resolveExisting(Map<String, T> candidates, List<Object[]> existing, BiConsumer<T, Integer> idSetter) {
+        for (Object[] row : existing) {
+            T entity = candidates.get((String) row[0]);
+            if (entity != null) {
+                idSetter.accept(entity, (Integer) row[1]);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.lab1.importer;
+
+/**
+ * Параметры выполнения импорта.
+ * @param jobId         задача, в которой сохраняются контрольные точки.
+ * @param chunkedCommit фиксировать каждую порцию отдельно (иначе весь файл в одной транзакции).
+ * @param skipInvalid   пропускать некорректные записи с записью в отчёт вместо остановки импорта.
+ * @param resumeFrom    число уже обработанных записей файла, которые нужно пропустить.
+ * @param imported      число записей, сохранённых до возобновления.
+ * @param skipped       число записей, пропущенных до возобновления.
+ * @param errorReportObject объект MinIO, в который выгружается отчёт о пропущенных записях.
+ */
+public record ImportOptions(Long jobId, boolean chunkedCommit, boolean skipInvalid,
+                            int resumeFrom, int imported, int skipped, String errorReportObject) {
+}
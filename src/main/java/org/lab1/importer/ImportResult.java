@@ -0,0 +1,10 @@
+package org.lab1.importer;
+
+/**
+ * Итог импорта с учётом предыдущих запусков той же задачи.
+ * @param processed число обработанных записей файла (следующая контрольная точка).
+ * @param imported  число сохранённых фильмов.
+ * @param skipped   число пропущенных некорректных записей.
+ */
+public record ImportResult(int processed, int imported, int skipped) {
+}
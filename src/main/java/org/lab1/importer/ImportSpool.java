@@ -0,0 +1,70 @@
+package org.lab1.importer;
+
+import lombok.Getter;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Локальная копия загруженного файла. Из неё файл один раз отправляется в MinIO
+ * и параллельно читается парсером, без повторного скачивания из хранилища.
+ * При копировании считается SHA-256 содержимого для распознавания повторных загрузок.
+ * Временный файл удаляется при закрытии.
+ */
+@Getter
+public class ImportSpool implements Closeable {
+
+    private final Path path;
+    private final long size;
+    private final String contentType;
+    private final String originalFilename;
+    private final String contentHash;
+
+    private ImportSpool(Path path, long size, String contentType, String originalFilename, String contentHash) {
+        this.path = path;
+        this.size = size;
+        this.contentType = contentType;
+        this.originalFilename = originalFilename;
+        this.contentHash = contentHash;
+    }
+
+    public static ImportSpool of(MultipartFile file) throws IOException {
+        Path path = Files.createTempFile("movie-import-", ".upload");
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            long size = Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            return new ImportSpool(path, size, file.getContentType(), file.getOriginalFilename(), contentHash);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public InputStream openStream() throws IOException {
+        return new BufferedInputStream(Files.newInputStream(path));
+    }
+
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,359 @@
+package org.lab1.importer;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.lab1.model.Coordinates;
+import org.lab1.model.Location;
+import org.lab1.model.Movie;
+import org.lab1.model.NaturalKeys;
+import org.lab1.model.Person;
+import org.lab1.service.MovieAggregateService;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Массовая загрузка фильмов в обход Hibernate: идентификаторы берутся из последовательностей
+ * диапазонами, строки пишутся протоколом PostgreSQL COPY (или пакетными INSERT для других драйверов).
+ * Работает на соединении текущей транзакции, поэтому откат импорта откатывает и загруженные строки.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MovieBulkLoader {
+
+    /** Совпадает с allocationSize по умолчанию у {@code @GeneratedValue(strategy = SEQUENCE)}. */
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private static final TableSpec LOCATION = new TableSpec("location", "location_seq",
+            "id", "x", "y", "z", "name", "natural_key");
+    private static final TableSpec PERSON = new TableSpec("person", "person_seq",
+            "id", "name", "eye_color", "hair_color", "birthday", "weight", "location_id", "natural_key");
+    private static final TableSpec COORDINATES = new TableSpec("coordinates", "coordinates_seq",
+            "id", "x", "y");
+    private static final TableSpec MOVIE = new TableSpec("movie", "movie_seq",
+            "id", "name", "name_key", "version", "coordinates_id", "creation_date", "oscars_count", "budget",
+            "total_box_office", "mpaa_rating", "director_id", "screenwriter_id", "operator_id",
+            "length", "golden_palm_count", "usa_box_office", "tagline", "genre");
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MovieAggregateService movieAggregateService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Записывает фильмы вместе с координатами, людьми и локациями.
+     * Сущности, у которых уже есть id, считаются существующими и не вставляются повторно.
+     * Люди и локации вставляются через upsert по естественному ключу: если такую строку
+     * уже добавила параллельная транзакция, используется её id.
+     * Присвоенные идентификаторы проставляются в переданные объекты.
+     */
+    public void load(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return;
+        }
+        Map<Person, Boolean> newPersons = new IdentityHashMap<>();
+        Map<Location, Boolean> newLocations = new IdentityHashMap<>();
+        for (Movie movie : movies) {
+            collectPerson(movie.getDirector(), newPersons, newLocations);
+            collectPerson(movie.getScreenwriter(), newPersons, newLocations);
+            collectPerson(movie.getOperator(), newPersons, newLocations);
+        }
+        List<Location> locations = new ArrayList<>(newLocations.keySet());
+        List<Person> persons = new ArrayList<>(newPersons.keySet());
+        List<Coordinates> coordinates = movies.stream().map(Movie::getCoordinates).toList();
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            RowWriter writer = createWriter(connection);
+
+            assignIds(connection, LOCATION, locations, Location::setId);
+            upsertByNaturalKey(connection, LOCATION, locations, Location::getNaturalKey, Location::setId,
+                    l -> new Object[]{l.getId(), l.getX(), l.getY(), l.getZ(), l.getName(), l.getNaturalKey()});
+
+            // id локаций окончательны только после upsert, поэтому люди идут следующими
+            assignIds(connection, PERSON, persons, Person::setId);
+            upsertByNaturalKey(connection, PERSON, persons, Person::getNaturalKey, Person::setId,
+                    p -> new Object[]{p.getId(), p.getName(), p.getEyeColor(), p.getHairColor(), p.getBirthday(),
+                            p.getWeight(), p.getLocation() == null ? null : p.getLocation().getId(), p.getNaturalKey()});
+
+            assignIds(connection, COORDINATES, coordinates, Coordinates::setId);
+            assignIds(connection, MOVIE, movies, Movie::setId);
+
+            LocalDate today = LocalDate.now();
+            writer.write(COORDINATES, rows(coordinates, c -> new Object[]{
+                    c.getId(), c.getX(), c.getY()}));
+            writer.write(MOVIE, rows(movies, m -> {
+                m.setVersion(0);
+                m.setCreationDate(today);
+                return new Object[]{
+                        m.getId(), m.getName(), m.getNameKey(), m.getVersion(), m.getCoordinates().getId(), m.getCreationDate(),
+                        m.getOscarsCount(), m.getBudget(), m.getTotalBoxOffice(), m.getMpaaRating(),
+                        m.getDirector().getId(), idOf(m.getScreenwriter()), m.getOperator().getId(),
+                        m.getLength(), m.getGoldenPalmCount(), m.getUsaBoxOffice(), m.getTagline(), m.getGenre()};
+            }));
+        });
+        movieAggregateService.moviesAdded(movies);
+    }
+
+    /**
+     * Регистрирует очистку регионов L2-кэша затронутых сущностей после фиксации транзакции:
+     * строки были записаны мимо Hibernate, и он о них не знает.
+     */
+    public void evictCacheRegionsAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictCacheRegions();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictCacheRegions();
+            }
+        });
+    }
+
+    private void evictCacheRegions() {
+        jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+        cache.evict(Movie.class);
+        cache.evict(Coordinates.class);
+        cache.evict(Person.class);
+        cache.evict(Location.class);
+        log.info("L2 cache regions for Movie, Coordinates, Person and Location evicted after bulk import");
+    }
+
+    private void collectPerson(Person person, Map<Person, Boolean> persons, Map<Location, Boolean> locations) {
+        if (person == null || person.getId() != null) {
+            return;
+        }
+        if (person.getNaturalKey() == null) {
+            person.setNaturalKey(NaturalKeys.of(person));
+        }
+        persons.put(person, Boolean.TRUE);
+        Location location = person.getLocation();
+        if (location != null && location.getId() == null) {
+            if (location.getNaturalKey() == null) {
+                location.setNaturalKey(NaturalKeys.of(location));
+            }
+            locations.put(location, Boolean.TRUE);
+        }
+    }
+
+    private static Integer idOf(Person person) {
+        return person == null ? null : person.getId();
+    }
+
+    private static <T> List<Object[]> rows(List<T> entities, Function<T, Object[]> mapper) {
+        List<Object[]> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            rows.add(mapper.apply(entity));
+        }
+        return rows;
+    }
+
+    /**
+     * Выделяет идентификаторы так же, как pooled-оптимизатор Hibernate:
+     * каждое значение {@code nextval} резервирует диапазон (v - allocationSize, v].
+     * Один запрос к последовательности на всю порцию.
+     */
+    private <T> void assignIds(Connection connection, TableSpec table, List<T> entities,
+                               IdSetter<T> setter) throws SQLException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        int blocks = (entities.size() + SEQUENCE_ALLOCATION_SIZE - 1) / SEQUENCE_ALLOCATION_SIZE;
+        String sql = "SELECT nextval('" + table.sequence() + "') FROM generate_series(1, ?)";
+        int index = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, blocks + 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next() && index < entities.size()) {
+                    long hi = rs.getLong(1);
+                    for (long id = Math.max(1, hi - SEQUENCE_ALLOCATION_SIZE + 1); id <= hi && index < entities.size(); id++) {
+                        setter.set(entities.get(index++), (int) id);
+                    }
+                }
+            }
+        }
+        if (index < entities.size()) {
+            throw new SQLException("Sequence " + table.sequence() + " did not provide enough identifiers");
+        }
+    }
+
+    /**
+     * Вставляет строки пакетом {@code INSERT ... ON CONFLICT (natural_key) DO NOTHING}.
+     * Для строк, которые не вставились из-за конфликта, id перечитываются одним запросом.
+     */
+    private <T> void upsertByNaturalKey(Connection connection, TableSpec table, List<T> entities,
+                                        Function<T, String> keyGetter, IdSetter<T> setter,
+                                        Function<T, Object[]> mapper) throws SQLException {
+        if (entities.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(table.columns().length, "?"));
+        String sql = "INSERT INTO " + table.name() + " (" + table.columnList() + ") VALUES (" + placeholders + ")"
+                + " ON CONFLICT (natural_key) DO NOTHING";
+        int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (T entity : entities) {
+                Object[] row = mapper.apply(entity);
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, toJdbcValue(row[i]));
+                }
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+        }
+
+        // Разные объекты с одним ключом в порции (например, режиссёр и оператор) получают один и тот же id
+        Map<String, List<T>> conflicted = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 1) {
+                conflicted.computeIfAbsent(keyGetter.apply(entities.get(i)), k -> new ArrayList<>()).add(entities.get(i));
+            }
+        }
+        if (conflicted.isEmpty()) {
+            return;
+        }
+        String select = "SELECT natural_key, id FROM " + table.name() + " WHERE natural_key = ANY(?)";
+        try (PreparedStatement statement = connection.prepareStatement(select)) {
+            statement.setArray(1, connection.createArrayOf("varchar", conflicted.keySet().toArray()));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    for (T entity : conflicted.get(rs.getString(1))) {
+                        setter.set(entity, rs.getInt(2));
+                    }
+                }
+            }
+        }
+    }
+
+    private RowWriter createWriter(Connection connection) throws SQLException {
+        if (connection.isWrapperFor(PGConnection.class)) {
+            return new CopyRowWriter(connection.unwrap(PGConnection.class).getCopyAPI());
+        }
+        log.warn("JDBC connection is not PostgreSQL, bulk import falls back to batched INSERT statements");
+        return new BatchRowWriter(connection);
+    }
+
+    @FunctionalInterface
+    private interface IdSetter<T> {
+        void set(T entity, Integer id);
+    }
+
+    private record TableSpec(String name, String sequence, String... columns) {
+        String columnList() {
+            return String.join(", ", columns);
+        }
+    }
+
+    private interface RowWriter {
+        void write(TableSpec table, List<Object[]> rows) throws SQLException;
+    }
+
+    private static Object toJdbcValue(Object value) {
+        if (value instanceof Enum<?> e) {
+            return e.name();
+        }
+        if (value instanceof ZonedDateTime zdt) {
+            return zdt.toOffsetDateTime();
+        }
+        return value;
+    }
+
+    private static final class CopyRowWriter implements RowWriter {
+
+        private final CopyManager copyManager;
+
+        private CopyRowWriter(CopyManager copyManager) {
+            this.copyManager = copyManager;
+        }
+
+        @Override
+        public void write(TableSpec table, List<Object[]> rows) throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            StringBuilder csv = new StringBuilder(rows.size() * 64);
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    if (i > 0) {
+                        csv.append(',');
+                    }
+                    appendCsvValue(csv, toJdbcValue(row[i]));
+                }
+                csv.append('\n');
+            }
+            String sql = "COPY " + table.name() + " (" + table.columnList() + ") FROM STDIN WITH (FORMAT csv)";
+            try {
+                copyManager.copyIn(sql, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static void appendCsvValue(StringBuilder csv, Object value) {
+            if (value == null) {
+                return;
+            }
+            if (value instanceof String s) {
+                csv.append('"').append(s.replace("\"", "\"\"")).append('"');
+            } else if (value instanceof OffsetDateTime odt) {
+                csv.append(odt);
+            } else {
+                csv.append(value);
+            }
+        }
+    }
+
+    private static final class BatchRowWriter implements RowWriter {
+
+        private final Connection connection;
+
+        private BatchRowWriter(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public void write(TableSpec table, List<Object[]> rows) throws SQLException {
+            if (rows.isEmpty()) {
+                return;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(table.columns().length, "?"));
+            String sql = "INSERT INTO " + table.name() + " (" + table.columnList() + ") VALUES (" + placeholders + ")";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Object[] row : rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        statement.setObject(i + 1, toJdbcValue(row[i]));
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+    }
+}
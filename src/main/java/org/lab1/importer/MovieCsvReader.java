@@ -0,0 +1,111 @@
+package org.lab1.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import org.lab1.dto.MovieDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Читает фильмы из CSV с заголовком построчно. Вложенные поля задаются колонками
+ * с точкой в имени: {@code coordinates.x}, {@code director.name}, {@code director.location.name}.
+ * Пустые ячейки считаются отсутствующими значениями. Заголовок, в котором колонка одновременно
+ * скалярная и родительская для вложенных ({@code coordinates} и {@code coordinates.x}), отклоняется.
+ */
+public class MovieCsvReader implements MovieRecordReader {
+
+    private final ObjectMapper mapper;
+    private final MappingIterator<Map<String, String>> rows;
+    private boolean headerChecked;
+
+    public MovieCsvReader(ObjectMapper mapper, InputStream stream) throws IOException {
+        this.mapper = mapper;
+        CsvSchema schema = CsvSchema.emptySchema().withHeader();
+        this.rows = new CsvMapper().readerForMapOf(String.class).with(schema).readValues(stream);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return rows.hasNext();
+    }
+
+    @Override
+    public RecordChunk readChunk(int maxSize) throws IOException {
+        RecordChunk chunk = new RecordChunk(maxSize);
+        checkHeader();
+        while (chunk.size() < maxSize && rows.hasNextValue()) {
+            ObjectNode tree = toTree(rows.nextValue());
+            try {
+                chunk.add(mapper.treeToValue(tree, MovieDto.class));
+            } catch (JsonProcessingException e) {
+                // Строку с неподходящим значением пропускает политика импорта, чтение продолжается
+                chunk.addUnbound(e.getOriginalMessage());
+            }
+        }
+        return chunk;
+    }
+
+    @Override
+    public int skip(int count) throws IOException {
+        int skipped = 0;
+        checkHeader();
+        while (skipped < count && rows.hasNextValue()) {
+            rows.nextValue();
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Проверяет заголовок один раз, после его чтения вместе с первой строкой.
+     * Иначе вложенное поле попало бы в скалярное значение или наоборот.
+     */
+    private void checkHeader() throws IOException {
+        if (headerChecked || !rows.hasNextValue()) {
+            return;
+        }
+        headerChecked = true;
+        Set<String> columns = new HashSet<>();
+        for (String column : ((CsvSchema) rows.getParser().getSchema()).getColumnNames()) {
+            columns.add(column.trim());
+        }
+        for (String column : columns) {
+            for (int dot = column.indexOf('.'); dot >= 0; dot = column.indexOf('.', dot + 1)) {
+                String parent = column.substring(0, dot);
+                if (columns.contains(parent)) {
+                    throw new IOException("CSV header has both column '" + parent
+                            + "' and nested column '" + column + "'");
+                }
+            }
+        }
+    }
+
+    private ObjectNode toTree(Map<String, String> row) {
+        ObjectNode root = mapper.createObjectNode();
+        for (Map.Entry<String, String> cell : row.entrySet()) {
+            if (cell.getValue() == null || cell.getValue().isEmpty()) {
+                continue;
+            }
+            String[] path = cell.getKey().trim().split("\\.");
+            ObjectNode node = root;
+            for (int i = 0; i < path.length - 1; i++) {
+                node = node.has(path[i]) ? (ObjectNode) node.get(path[i]) : node.putObject(path[i]);
+            }
+            node.put(path[path.length - 1], cell.getValue());
+        }
+        return root;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rows.close();
+    }
+}
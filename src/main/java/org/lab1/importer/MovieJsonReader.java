@@ -0,0 +1,72 @@
+package org.lab1.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lab1.dto.MovieDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Читает фильмы поэлементно через {@link JsonParser}: либо из JSON-массива,
+ * либо из NDJSON (последовательности объектов верхнего уровня, по одному на строку).
+ */
+public class MovieJsonReader implements MovieRecordReader {
+
+    private final ObjectMapper mapper;
+    private final JsonParser parser;
+    private JsonToken current;
+
+    public MovieJsonReader(ObjectMapper mapper, InputStream stream, boolean lineDelimited) throws IOException {
+        this.mapper = mapper;
+        this.parser = mapper.getFactory().createParser(stream);
+        if (!lineDelimited && parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a JSON array of movies");
+        }
+        this.current = parser.nextToken();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return current != null && current != JsonToken.END_ARRAY;
+    }
+
+    @Override
+    public RecordChunk readChunk(int maxSize) throws IOException {
+        RecordChunk chunk = new RecordChunk(maxSize);
+        while (chunk.size() < maxSize && hasNext()) {
+            if (current != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a movie object but found " + current
+                        + " at " + parser.currentLocation().offsetDescription());
+            }
+            // Объект сначала читается деревом: ошибка преобразования в DTO касается только этой записи
+            JsonNode tree = parser.readValueAsTree();
+            try {
+                chunk.add(mapper.treeToValue(tree, MovieDto.class));
+            } catch (JsonProcessingException e) {
+                chunk.addUnbound(e.getOriginalMessage());
+            }
+            current = parser.nextToken();
+        }
+        return chunk;
+    }
+
+    @Override
+    public int skip(int count) throws IOException {
+        int skipped = 0;
+        while (skipped < count && hasNext()) {
+            parser.skipChildren();
+            current = parser.nextToken();
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,69 @@
+package org.lab1.importer;
+
+import org.lab1.dto.MovieDto;
+import org.lab1.model.Movie;
+import org.lab1.repository.MovieRepository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ищет повторяющиеся названия фильмов до записи в базу, чтобы импорт не падал
+ * на уникальном индексе {@code movie.name_key} уже после отправки порции.
+ * Названия сравниваются без учёта регистра, как в {@link Movie#nameKeyOf}.
+ * Создаётся на один файл: принятые названия предыдущих порций хранятся в памяти,
+ * и в базе ищутся только остальные. Набор ограничен {@code maxNames} записями; названия
+ * сверх предела проверяются только запросом и при повторе сообщаются как уже существующие.
+ */
+public class MovieNameChecker {
+
+    private final MovieRepository movieRepository;
+    private final int maxNames;
+    private final Set<String> fileNameKeys = new HashSet<>();
+
+    public MovieNameChecker(MovieRepository movieRepository, int maxNames) {
+        this.movieRepository = movieRepository;
+        this.maxNames = maxNames;
+    }
+
+    /**
+     * Дополняет ошибки порции повторами названий. Проверяются только элементы без других ошибок,
+     * поэтому название занимает первая корректная запись, а не первая встреченная.
+     * Вызывается в потоке импорта по порядку порций.
+     * @param errors описания ошибок по индексам элементов, {@code null} для корректных.
+     */
+    public void check(List<MovieDto> chunk, String[] errors) {
+        Map<String, Integer> accepted = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] != null) {
+                continue;
+            }
+            String name = chunk.get(i).getName();
+            if (name == null) {
+                continue;
+            }
+            String nameKey = Movie.nameKeyOf(name);
+            if (fileNameKeys.contains(nameKey) || accepted.putIfAbsent(nameKey, i) != null) {
+                errors[i] = "name: '" + name + "' occurs earlier in the file";
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+        // Один запрос на порцию и только по названиям, которых ещё не было в файле
+        Set<String> existing = new HashSet<>(movieRepository.findExistingNameKeys(accepted.keySet().toArray(String[]::new)));
+        for (String nameKey : existing) {
+            int i = accepted.remove(nameKey);
+            errors[i] = "name: movie '" + chunk.get(i).getName() + "' already exists";
+        }
+        for (String nameKey : accepted.keySet()) {
+            if (fileNameKeys.size() >= maxNames) {
+                break;
+            }
+            fileNameKeys.add(nameKey);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.lab1.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Потоковый источник фильмов для импорта: отдаёт записи порциями,
+ * не загружая весь файл в память.
+ */
+public interface MovieRecordReader extends Closeable {
+
+    boolean hasNext();
+
+    /**
+     * Читает не более {@code maxSize} следующих записей. Запись, которую не удалось
+     * преобразовать в DTO, не прерывает чтение, а попадает в порцию с описанием ошибки.
+     * @return прочитанные записи, пустая порция если записи закончились.
+     */
+    RecordChunk readChunk(int maxSize) throws IOException;
+
+    /**
+     * Пропускает не более {@code count} записей без разбора в DTO и валидации.
+     * Используется при возобновлении импорта с контрольной точки.
+     * @return число фактически пропущенных записей.
+     */
+    int skip(int count) throws IOException;
+}
@@ -0,0 +1,47 @@
+package org.lab1.importer;
+
+import org.lab1.dto.MovieDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Порция записей, прочитанных {@link MovieRecordReader}. Запись, которую не удалось
+ * преобразовать в {@link MovieDto}, остаётся на своём месте в порции как {@code null},
+ * а описание ошибки хранится под тем же индексом.
+ */
+public class RecordChunk {
+
+    private final List<MovieDto> items;
+    private final List<String> bindErrors;
+
+    public RecordChunk(int capacity) {
+        this.items = new ArrayList<>(capacity);
+        this.bindErrors = new ArrayList<>(capacity);
+    }
+
+    public void add(MovieDto item) {
+        items.add(item);
+        bindErrors.add(null);
+    }
+
+    public void addUnbound(String error) {
+        items.add(null);
+        bindErrors.add(error);
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    public List<MovieDto> items() {
+        return items;
+    }
+
+    /**
+     * @return описания ошибок по индексам записей, {@code null} для разобранных.
+     */
+    public String[] bindErrors() {
+        return bindErrors.toArray(String[]::new);
+    }
+}
@@ -102,6 +102,7 @@ public class DtoMapper {
         if (entity == null) return null;
         MovieDto dto = new MovieDto();
         dto.setId(entity.getId());
+        dto.setVersion(entity.getVersion());
         dto.setName(entity.getName());
         dto.setCoordinates(toCoordinatesDto(entity.getCoordinates()));
         dto.setOscarsCount(entity.getOscarsCount());
@@ -139,6 +140,15 @@ public class DtoMapper {
         dto.setImportedCount(entity.getImportedCount());
         dto.setDetails(entity.getDetails());
         dto.setObjectName(entity.getObjectName());
+        dto.setDurationMs(entity.getDurationMs());
+        dto.setRowsPerSecond(entity.getRowsPerSecond());
+        dto.setContentHash(entity.getContentHash());
+        dto.setFormat(entity.getFormat());
+        dto.setCommitMode(entity.getCommitMode());
+        dto.setInvalidRowPolicy(entity.getInvalidRowPolicy());
+        dto.setCheckpointIndex(entity.getCheckpointIndex());
+        dto.setSkippedCount(entity.getSkippedCount());
+        dto.setErrorReportObject(entity.getErrorReportObject());
         return dto;
     }
 
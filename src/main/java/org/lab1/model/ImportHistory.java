@@ -3,11 +3,14 @@ package org.lab1.model;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.lab1.enums.ImportCommitMode;
+import org.lab1.enums.InvalidRowPolicy;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
 @NoArgsConstructor
+@Table(indexes = @Index(name = "idx_import_history_content_hash", columnList = "content_hash"))
 public class ImportHistory {
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
@@ -27,6 +30,34 @@ public class ImportHistory {
     @Column(name = "object_name")
     private String objectName;
 
+    private Long durationMs;
+
+    private Double rowsPerSecond;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(length = 16)
+    private String format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImportCommitMode commitMode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private InvalidRowPolicy invalidRowPolicy;
+
+    // Число обработанных записей файла, зафиксированных в базе (для возобновления импорта)
+    private Integer checkpointIndex;
+
+    private Integer skippedCount;
+
+    @Column(name = "error_report_object")
+    private String errorReportObject;
+
+    // Обновляется процессом, выполняющим задачу; задача без свежей отметки считается брошенной
+    private LocalDateTime heartbeatAt;
 
     public ImportHistory(String status, Integer importedCount, String details, String objectName) {
         this.importDate = LocalDateTime.now();
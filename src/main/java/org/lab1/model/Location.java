@@ -25,4 +25,13 @@ public class Location {
 
     @Column(nullable = false, length = 475)
     private String name;
-}
\ No newline at end of file
+
+    @Column(name = "natural_key", length = 64, unique = true)
+    private String naturalKey;
+
+    @PrePersist
+    @PreUpdate
+    protected void updateNaturalKey() {
+        this.naturalKey = NaturalKeys.of(this);
+    }
+}
@@ -1,13 +1,18 @@
 package org.lab1.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Setter;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 import org.lab1.enums.MovieGenre;
 import org.lab1.enums.MpaaRating;
 import java.time.LocalDate;
+import java.util.Locale;
 import jakarta.persistence.Cacheable;
 import org.hibernate.annotations.Cache;
 
@@ -15,7 +20,21 @@ import org.hibernate.annotations.Cache;
 @Entity
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Соответствие nameKey -> id в отдельном регионе L2-кэша, см. application.properties
+@NaturalIdCache(region = Movie.NAME_KEY_REGION)
+// Всё, что читает DtoMapper.toMovieDto: список фильмов загружается одним запросом с join
+@NamedEntityGraph(name = Movie.GRAPH_FOR_DTO,
+        attributeNodes = {
+                @NamedAttributeNode("coordinates"),
+                @NamedAttributeNode(value = "director", subgraph = "person"),
+                @NamedAttributeNode(value = "screenwriter", subgraph = "person"),
+                @NamedAttributeNode(value = "operator", subgraph = "person")
+        },
+        subgraphs = @NamedSubgraph(name = "person", attributeNodes = @NamedAttributeNode("location")))
 public class Movie {
+    public static final String GRAPH_FOR_DTO = "Movie.forDto";
+    public static final String NAME_KEY_REGION = "movie-name";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Integer id;
@@ -23,6 +42,12 @@ public class Movie {
     @Column(nullable = false, unique = true)
     private String name;
 
+    // Название без учёта регистра; задаётся только через setName
+    @NaturalId(mutable = true)
+    @Column(name = "name_key", nullable = false, unique = true)
+    @Setter(AccessLevel.NONE)
+    private String nameKey;
+
     @Version
     private Integer version;
 
@@ -71,6 +96,18 @@ public class Movie {
     @Enumerated(EnumType.STRING)
     private MovieGenre genre;
 
+    public void setName(String name) {
+        this.name = name;
+        this.nameKey = nameKeyOf(name);
+    }
+
+    /**
+     * Ключ поиска по названию: фильмы, названия которых различаются только регистром, считаются одним.
+     */
+    public static String nameKeyOf(String name) {
+        return name == null ? null : name.toLowerCase(Locale.ROOT);
+    }
+
     @PrePersist
     protected void onCreate() {
         this.creationDate = LocalDate.now();
@@ -0,0 +1,27 @@
+package org.lab1.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Материализованные агрегаты по всем фильмам: единственная строка с id = {@link #SINGLETON_ID}.
+ * Обновляется в тех же транзакциях, что меняют фильмы, поэтому чтение не требует сканирования таблицы.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieAggregate {
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(nullable = false)
+    private Long goldenPalmSum;
+
+    @Column(nullable = false)
+    private Long movieCount;
+}
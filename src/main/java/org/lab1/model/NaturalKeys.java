@@ -0,0 +1,48 @@
+package org.lab1.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+
+/**
+ * Естественные ключи людей и локаций: SHA-256 от всех значимых полей.
+ * Одинаковые люди и локации получают одинаковый ключ и хранятся одной строкой.
+ */
+public final class NaturalKeys {
+
+    private static final char SEPARATOR = '\u001F';
+    private static final String NULL_MARKER = "\u0000";
+
+    private NaturalKeys() {
+    }
+
+    public static String of(Location location) {
+        if (location == null) return null;
+        return hash("L", location.getName(), location.getX(), location.getY(), location.getZ());
+    }
+
+    public static String of(Person person) {
+        if (person == null) return null;
+        // Время рождения хранится с точностью до микросекунд и без исходной зоны
+        Object birthday = person.getBirthday() == null
+                ? null
+                : person.getBirthday().toInstant().truncatedTo(ChronoUnit.MICROS);
+        return hash("P", person.getName(), person.getEyeColor(), person.getHairColor(), birthday,
+                person.getWeight(), of(person.getLocation()));
+    }
+
+    private static String hash(Object... parts) {
+        StringBuilder canonical = new StringBuilder();
+        for (Object part : parts) {
+            canonical.append(part == null ? NULL_MARKER : part.toString()).append(SEPARATOR);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
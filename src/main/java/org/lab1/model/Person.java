@@ -32,4 +32,13 @@ public class Person {
     @ManyToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "location_id")
     private Location location;
-}
\ No newline at end of file
+
+    @Column(name = "natural_key", length = 64, unique = true)
+    private String naturalKey;
+
+    @PrePersist
+    @PreUpdate
+    protected void updateNaturalKey() {
+        this.naturalKey = NaturalKeys.of(this);
+    }
+}
@@ -2,8 +2,50 @@ package org.lab1.repository;
 
 import org.lab1.model.ImportHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ImportHistoryRepository extends JpaRepository<ImportHistory, Long> {
-}
\ No newline at end of file
+    Optional<ImportHistory> findFirstByContentHashAndStatusInOrderByIdAsc(String contentHash, Collection<String> statuses);
+
+    @Modifying
+    // Ссылка на отчёт только устанавливается: null оставляет прежнее значение
+    @Query("UPDATE ImportHistory h SET h.checkpointIndex = :checkpoint, h.importedCount = :imported, " +
+            "h.skippedCount = :skipped, h.errorReportObject = COALESCE(:report, h.errorReportObject) WHERE h.id = :id")
+    int updateCheckpoint(@Param("id") Long id, @Param("checkpoint") int checkpoint,
+                         @Param("imported") int imported, @Param("skipped") int skipped, @Param("report") String report);
+
+    // Меняет статус, только если задача всё ещё в ожидаемом состоянии; 0 - задачу уже перехватили
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportHistory h SET h.status = :status, h.heartbeatAt = :now " +
+            "WHERE h.id = :id AND h.status = :expected")
+    int compareAndSetStatus(@Param("id") Long id, @Param("expected") String expected, @Param("status") String status,
+                            @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportHistory h SET h.heartbeatAt = :now WHERE h.id IN :ids")
+    int touchHeartbeat(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT h FROM ImportHistory h WHERE h.status IN :statuses " +
+            "AND (h.heartbeatAt IS NULL OR h.heartbeatAt < :cutoff)")
+    List<ImportHistory> findAbandoned(@Param("statuses") Collection<String> statuses, @Param("cutoff") LocalDateTime cutoff);
+
+    // Условие повторяется, чтобы не задеть задачу, которую успели возобновить или продлить после выборки
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImportHistory h SET h.status = 'FAILURE', h.details = :details, h.objectName = :objectName " +
+            "WHERE h.id = :id AND h.status = :expected AND (h.heartbeatAt IS NULL OR h.heartbeatAt < :cutoff)")
+    int markAbandoned(@Param("id") Long id, @Param("expected") String expected, @Param("cutoff") LocalDateTime cutoff,
+                      @Param("details") String details, @Param("objectName") String objectName);
+}
@@ -0,0 +1,19 @@
+package org.lab1.repository;
+
+import org.lab1.model.Location;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LocationRepository extends JpaRepository<Location, Integer> {
+    Optional<Location> findByNaturalKey(String naturalKey);
+
+    @Query("SELECT l.naturalKey, l.id FROM Location l WHERE l.naturalKey IN :keys")
+    List<Object[]> findIdsByNaturalKeys(@Param("keys") Collection<String> keys);
+}
@@ -0,0 +1,32 @@
+package org.lab1.repository;
+
+import jakarta.persistence.LockModeType;
+import org.lab1.model.MovieAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface MovieAggregateRepository extends JpaRepository<MovieAggregate, Integer> {
+
+    // JPQL, а не native: native-обновление заставило бы Hibernate сбросить весь L2-кэш
+    @Modifying
+    @Query("UPDATE MovieAggregate a SET a.goldenPalmSum = a.goldenPalmSum + :goldenPalms, " +
+            "a.movieCount = a.movieCount + :movies WHERE a.id = " + MovieAggregate.SINGLETON_ID)
+    int addDelta(@Param("goldenPalms") long goldenPalms, @Param("movies") long movies);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM MovieAggregate a WHERE a.id = " + MovieAggregate.SINGLETON_ID)
+    Optional<MovieAggregate> lockSingleton();
+
+    @Modifying
+    @Query("UPDATE MovieAggregate a SET " +
+            "a.goldenPalmSum = (SELECT COALESCE(SUM(m.goldenPalmCount), 0) FROM Movie m), " +
+            "a.movieCount = (SELECT COUNT(m) FROM Movie m) WHERE a.id = " + MovieAggregate.SINGLETON_ID)
+    int recompute();
+}
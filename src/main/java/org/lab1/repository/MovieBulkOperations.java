@@ -0,0 +1,54 @@
+package org.lab1.repository;
+
+import org.lab1.enums.MovieGenre;
+import org.lab1.model.Movie;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Операции над фильмами одним SQL-запросом, без загрузки сущностей.
+ * Подключается к {@link MovieRepository} как фрагмент, реализация - {@link MovieBulkOperationsImpl}.
+ */
+public interface MovieBulkOperations {
+
+    /**
+     * Обнуляет «Оскары» фильмов жанра {@code from} и распределяет их сумму поровну между фильмами жанра {@code to}.
+     * Остаток достаётся первым по id фильмам, по одному на фильм. Версии изменённых фильмов увеличиваются,
+     * они же сбрасываются из региона Movie L2-кэша по id.
+     */
+    RedistributedOscars redistributeOscars(MovieGenre from, MovieGenre to);
+
+    /**
+     * @param total    число перераспределённых «Оскаров»; 0, если переносить нечего или некуда.
+     * @param movieIds id изменённых фильмов обоих жанров.
+     */
+    record RedistributedOscars(long total, MovieGenre from, MovieGenre to, List<Integer> movieIds) {
+    }
+
+    /**
+     * Удаляет фильмы жанра вместе с их координатами и сбрасывает регионы Movie и Coordinates
+     * L2-кэша после фиксации транзакции.
+     */
+    DeletedMovies deleteByGenreInBulk(MovieGenre genre);
+
+    /**
+     * @param count         число удалённых фильмов.
+     * @param goldenPalmSum сумма их золотых пальмовых ветвей, для поддержки агрегатов.
+     */
+    record DeletedMovies(long count, long goldenPalmSum) {
+    }
+
+    /**
+     * Записывает поля фильма и его координаты, только если текущая версия равна {@code expectedVersion}.
+     * Проверка версии и изменение выполняются одним запросом, фильм предварительно не загружается.
+     * Люди из {@code changes} должны быть уже сохранены.
+     * @return новая версия и прежние значения полей, по которым фильтруется список;
+     *         пусто, если фильма нет или его версия другая.
+     */
+    Optional<VersionedUpdate> updateIfVersion(Integer id, int expectedVersion, Movie changes);
+
+    record VersionedUpdate(int version, int previousGoldenPalmCount, String previousName,
+                           MovieGenre previousGenre, String previousDirectorName) {
+    }
+}
@@ -0,0 +1,188 @@
+package org.lab1.repository;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.lab1.enums.MovieGenre;
+import org.lab1.model.Coordinates;
+import org.lab1.model.Movie;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class MovieBulkOperationsImpl implements MovieBulkOperations {
+
+    /** Больше изменённых фильмов регион Movie L2-кэша сбрасывается целиком, а не по id. */
+    private static final int MAX_EVICTED_IDS = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public DeletedMovies deleteByGenreInBulk(MovieGenre genre) {
+        // Координаты принадлежат только своему фильму, поэтому удаляются тем же запросом.
+        // Каскад внешнего ключа от координат к фильмам срабатывает в конце запроса и уже ничего не находит
+        Object[] result = (Object[]) entityManager.createNativeQuery(
+                        "WITH deleted AS (DELETE FROM movie WHERE genre = :genre RETURNING coordinates_id, golden_palm_count), " +
+                        "orphans AS (DELETE FROM coordinates WHERE id IN (SELECT coordinates_id FROM deleted)) " +
+                        "SELECT COUNT(*), COALESCE(SUM(golden_palm_count), 0) FROM deleted")
+                .setParameter("genre", genre.name())
+                .getSingleResult();
+        DeletedMovies deleted = new DeletedMovies(((Number) result[0]).longValue(), ((Number) result[1]).longValue());
+        if (deleted.count() > 0) {
+            Cache cache = entityManager.getEntityManagerFactory().getCache();
+            SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+            evictAfterCommit(() -> {
+                cache.evict(Movie.class);
+                cache.evict(Coordinates.class);
+                sessionFactory.getCache().evictNaturalIdData(Movie.class);
+            });
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<VersionedUpdate> updateIfVersion(Integer id, int expectedVersion, Movie changes) {
+        // Запрос с RETURNING Hibernate выполняет как выборку и не сбрасывает регионы кэша целиком,
+        // затронутые записи сбрасываются ниже по id
+        List<?> rows = entityManager.createNativeQuery(
+                        "WITH old AS (" +
+                        "  SELECT mo.id, mo.golden_palm_count, mo.name, mo.genre, p.name AS director_name " +
+                        "  FROM movie mo JOIN person p ON p.id = mo.director_id " +
+                        "  WHERE mo.id = :id AND mo.version = :version FOR UPDATE OF mo), " +
+                        "updated AS (" +
+                        "  UPDATE movie m SET name = :name, name_key = :nameKey, oscars_count = :oscars, budget = :budget, " +
+                        "    total_box_office = :totalBoxOffice, mpaa_rating = :mpaaRating, director_id = :director, " +
+                        "    screenwriter_id = :screenwriter, operator_id = :operator, length = :length, " +
+                        "    golden_palm_count = :goldenPalms, usa_box_office = :usaBoxOffice, tagline = :tagline, " +
+                        "    genre = :genre, version = m.version + 1 " +
+                        "  FROM old WHERE m.id = old.id RETURNING m.version, m.coordinates_id), " +
+                        "coords AS (" +
+                        "  UPDATE coordinates c SET x = :x, y = :y FROM updated WHERE c.id = updated.coordinates_id) " +
+                        "SELECT updated.version, updated.coordinates_id, old.golden_palm_count, old.name, old.genre, old.director_name " +
+                        "FROM updated, old")
+                .unwrap(NativeQuery.class)
+                .setParameter("id", id)
+                .setParameter("version", expectedVersion)
+                .setParameter("name", changes.getName())
+                .setParameter("nameKey", changes.getNameKey())
+                .setParameter("oscars", changes.getOscarsCount(), Integer.class)
+                .setParameter("budget", changes.getBudget())
+                .setParameter("totalBoxOffice", changes.getTotalBoxOffice())
+                .setParameter("mpaaRating", changes.getMpaaRating().name())
+                .setParameter("director", changes.getDirector().getId())
+                .setParameter("screenwriter", changes.getScreenwriter() == null ? null : changes.getScreenwriter().getId(), Integer.class)
+                .setParameter("operator", changes.getOperator().getId())
+                .setParameter("length", changes.getLength(), Integer.class)
+                .setParameter("goldenPalms", changes.getGoldenPalmCount())
+                .setParameter("usaBoxOffice", changes.getUsaBoxOffice(), Long.class)
+                .setParameter("tagline", changes.getTagline())
+                .setParameter("genre", changes.getGenre() == null ? null : changes.getGenre().name(), String.class)
+                .setParameter("x", changes.getCoordinates().getX())
+                .setParameter("y", changes.getCoordinates().getY())
+                .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Object[] row = (Object[]) rows.get(0);
+        Integer coordinatesId = ((Number) row[1]).intValue();
+        String previousName = (String) row[3];
+        // Прежнее название могло остаться в кэше естественных идентификаторов; поштучно его не сбросить
+        boolean renamed = !Movie.nameKeyOf(previousName).equals(changes.getNameKey());
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        Runnable eviction = () -> {
+            cache.evict(Movie.class, id);
+            cache.evict(Coordinates.class, coordinatesId);
+            if (renamed) {
+                sessionFactory.getCache().evictNaturalIdData(Movie.class);
+            }
+        };
+        eviction.run();
+        evictAfterCommit(eviction);
+        return Optional.of(new VersionedUpdate(((Number) row[0]).intValue(), ((Number) row[2]).intValue(),
+                previousName, row[4] == null ? null : MovieGenre.valueOf((String) row[4]), (String) row[5]));
+    }
+
+    @Override
+    public RedistributedOscars redistributeOscars(MovieGenre from, MovieGenre to) {
+        Number targets = (Number) entityManager
+                .createNativeQuery("SELECT COUNT(*) FROM movie WHERE genre = :genre")
+                .setParameter("genre", to.name())
+                .getSingleResult();
+        if (targets.longValue() == 0) {
+            return new RedistributedOscars(0, from, to, List.of());
+        }
+
+        // Строки исходного жанра блокируются, чтобы сумма не изменилась до её переноса
+        Number total = (Number) entityManager.createNativeQuery(
+                        "WITH source AS (SELECT oscars_count FROM movie WHERE genre = :genre FOR UPDATE) " +
+                        "SELECT COALESCE(SUM(oscars_count), 0) FROM source")
+                .setParameter("genre", from.name())
+                .getSingleResult();
+        if (total.longValue() == 0) {
+            return new RedistributedOscars(0, from, to, List.of());
+        }
+
+        Set<Integer> changed = new LinkedHashSet<>();
+        changed.addAll(ids(entityManager.createNativeQuery(
+                        "UPDATE movie SET oscars_count = NULL, version = version + 1 " +
+                        "WHERE genre = :from AND oscars_count IS NOT NULL RETURNING id")
+                .setParameter("from", from.name())
+                .getResultList()));
+        // Целая часть достаётся всем фильмам, остаток - первым по id
+        changed.addAll(ids(entityManager.createNativeQuery(
+                        "UPDATE movie m SET " +
+                        "oscars_count = COALESCE(m.oscars_count, 0) + :total / t.cnt + CASE WHEN t.rn <= :total % t.cnt THEN 1 ELSE 0 END, " +
+                        "version = m.version + 1 " +
+                        "FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn, COUNT(*) OVER () AS cnt " +
+                        "      FROM movie WHERE genre = :to) t " +
+                        "WHERE m.id = t.id RETURNING m.id")
+                .setParameter("to", to.name())
+                .setParameter("total", total.longValue())
+                .getResultList()));
+
+        List<Integer> movieIds = List.copyOf(changed);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        Runnable eviction = () -> {
+            // В кластере каждый сброс по id - отдельное сообщение другим узлам, поэтому при большом числе
+            // изменённых фильмов дешевле сбросить регион целиком
+            if (movieIds.size() > MAX_EVICTED_IDS) {
+                cache.evict(Movie.class);
+            } else {
+                movieIds.forEach(id -> cache.evict(Movie.class, id));
+            }
+        };
+        eviction.run();
+        evictAfterCommit(eviction);
+        return new RedistributedOscars(total.longValue(), from, to, movieIds);
+    }
+
+    private static List<Integer> ids(List<?> rows) {
+        return rows.stream().map(id -> ((Number) id).intValue()).toList();
+    }
+
+    /**
+     * Запросы с RETURNING Hibernate считает выборками и не сбрасывает кэш сам.
+     * Сброс откладывается до фиксации, чтобы параллельные чтения не вернули в кэш прежние строки.
+     */
+    private static void evictAfterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,17 @@
+package org.lab1.repository;
+
+import org.lab1.model.Movie;
+
+import java.util.Optional;
+
+/**
+ * Поиск фильма по естественному ключу через кэш естественных идентификаторов Hibernate.
+ */
+public interface MovieNaturalIdLookup {
+
+    /**
+     * Название сводится к {@link Movie#nameKeyOf}: ключ разрешается в id из региона
+     * {@link Movie#NAME_KEY_REGION}, сам фильм - из региона Movie; к базе запрос идёт только при промахе.
+     */
+    Optional<Movie> findByNameKey(String name);
+}
@@ -0,0 +1,21 @@
+package org.lab1.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.lab1.model.Movie;
+
+import java.util.Optional;
+
+public class MovieNaturalIdLookupImpl implements MovieNaturalIdLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Movie> findByNameKey(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Movie.class)
+                .loadOptional(Movie.nameKeyOf(name));
+    }
+}
@@ -2,15 +2,48 @@ package org.lab1.repository;
 
 import org.lab1.enums.MovieGenre;
 import org.lab1.model.Movie;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface MovieRepository extends JpaRepository<Movie, Integer>, JpaSpecificationExecutor<Movie> {
-    void deleteAllByGenre(MovieGenre genre);
-    List<Movie> findByTaglineContainingIgnoreCase(String substring);
+public interface MovieRepository extends JpaRepository<Movie, Integer>, JpaSpecificationExecutor<Movie>,
+        MovieBulkOperations, MovieNaturalIdLookup {
+
+    // Граф применяется только к выборке страницы, запрос количества остаётся без join
+    @Override
+    @EntityGraph(Movie.GRAPH_FOR_DTO)
+    Page<Movie> findAll(Specification<Movie> spec, Pageable pageable);
+
+    // lower(tagline) совпадает с выражением триграммного индекса idx_movie_tagline_trgm (миграция V2)
+    @EntityGraph(Movie.GRAPH_FOR_DTO)
+    @Query("SELECT m FROM Movie m WHERE lower(m.tagline) LIKE :pattern ESCAPE '\\'")
+    Slice<Movie> findByTaglineLike(@Param("pattern") String pattern, Pageable pageable);
+
+    // Прогрев кэша: фильмы вместе со всем, что нужно для DTO
+    @EntityGraph(Movie.GRAPH_FOR_DTO)
+    List<Movie> findByIdIn(Collection<Integer> ids);
+
     List<Movie> findByOscarsCount(Integer oscarsCount);
     List<Movie> findByGenre(MovieGenre genre);
+
+    // Оценка числа строк из статистики планировщика; -1, если таблица ещё не анализировалась
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('movie' AS regclass)", nativeQuery = true)
+    Long estimateRowCount();
+
+    @Query("SELECT COALESCE(SUM(m.goldenPalmCount), 0) FROM Movie m")
+    Long sumGoldenPalmCount();
+
+    // Один массив вместо IN-списка: план запроса не зависит от размера порции
+    @Query(value = "SELECT name_key FROM movie WHERE name_key = ANY(:nameKeys)", nativeQuery = true)
+    List<String> findExistingNameKeys(@Param("nameKeys") String[] nameKeys);
 }
\ No newline at end of file
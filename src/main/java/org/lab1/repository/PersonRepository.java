@@ -1,13 +1,32 @@
 package org.lab1.repository;
 
 import org.lab1.model.Person;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Integer> {
-    @Query("SELECT DISTINCT m.screenwriter.id FROM Movie m WHERE m.oscarsCount > 0 AND m.screenwriter IS NOT NULL")
-    List<Integer> findScreenwriterIdsWithOscars();
-}
\ No newline at end of file
+    // Сценаристы хотя бы одного фильма, ни один фильм которых не получил «Оскар»: полусоединение и антисоединение
+    @EntityGraph(attributePaths = "location")
+    @Query(value = "SELECT p FROM Person p " +
+            "WHERE EXISTS (SELECT 1 FROM Movie m WHERE m.screenwriter = p) " +
+            "AND NOT EXISTS (SELECT 1 FROM Movie m WHERE m.screenwriter = p AND m.oscarsCount > 0)",
+            countQuery = "SELECT COUNT(p) FROM Person p " +
+                    "WHERE EXISTS (SELECT 1 FROM Movie m WHERE m.screenwriter = p) " +
+                    "AND NOT EXISTS (SELECT 1 FROM Movie m WHERE m.screenwriter = p AND m.oscarsCount > 0)")
+    Page<Person> findScreenwritersWithoutOscars(Pageable pageable);
+
+    Optional<Person> findByNaturalKey(String naturalKey);
+
+    @Query("SELECT p.naturalKey, p.id FROM Person p WHERE p.naturalKey IN :keys")
+    List<Object[]> findIdsByNaturalKeys(@Param("keys") Collection<String> keys);
+}
@@ -0,0 +1,78 @@
+package org.lab1.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.lab1.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогревает L2-кэш при старте: загружает фильмы из снимка {@link MovieAccessTracker}
+ * вместе с координатами, людьми и локациями (граф Movie.forDto), самые востребованные первыми.
+ * Выполняется до публикации готовности приложения, поэтому проба readiness проходит только после
+ * окончания прогрева или истечения {@code app.cache.warmup.timeout-seconds}.
+ * Каждая порция загружается в транзакции с таймаутом, равным остатку времени прогрева:
+ * Spring передаёт его запросам как {@code jakarta.persistence.query.timeout}, и медленный запрос
+ * прерывается, а не задерживает старт.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheWarmupRunner implements ApplicationRunner {
+
+    private final MovieAccessTracker movieAccessTracker;
+    private final MovieRepository movieRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.warmup.timeout-seconds:30}")
+    private long timeoutSeconds;
+
+    @Value("${app.cache.warmup.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        List<Integer> ids = movieAccessTracker.loadSnapshot();
+        if (ids.isEmpty()) {
+            log.info("No cache warm-up snapshot, skipping warm-up");
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + timeoutSeconds * 1_000_000_000L;
+        int loaded = 0;
+        try {
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                if (System.nanoTime() > deadline) {
+                    log.warn("Cache warm-up timed out after {} s, {} of {} movies loaded",
+                            timeoutSeconds, loaded, ids.size());
+                    return;
+                }
+                List<Integer> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+                TransactionTemplate batchTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+                batchTransaction.setReadOnly(true);
+                // Таймаут транзакции задаётся в секундах; остаток меньше секунды округляется вверх
+                batchTransaction.setTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime() + 999_999_999L)));
+                // Загруженные запросом сущности Hibernate кладёт в L2-кэш; удалённые фильмы просто не находятся
+                loaded += batchTransaction.execute(status -> movieRepository.findByIdIn(batch).size());
+            }
+        } catch (RuntimeException e) {
+            // Без прогрева приложение работает, только первые запросы идут в базу
+            log.warn("Cache warm-up failed after {} movies: {}", loaded, e.getMessage());
+            return;
+        }
+        log.info("Cache warm-up loaded {} movies in {} ms", loaded, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
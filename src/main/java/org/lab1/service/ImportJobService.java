@@ -0,0 +1,200 @@
+package org.lab1.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.lab1.enums.ImportCommitMode;
+import org.lab1.enums.InvalidRowPolicy;
+import org.lab1.exception.ImportNotResumableException;
+import org.lab1.exception.ImportRejectedException;
+import org.lab1.exception.UnsupportedImportFormatException;
+import org.lab1.importer.ImportFormat;
+import org.lab1.importer.ImportSpool;
+import org.lab1.model.ImportHistory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Принимает файлы на импорт и выполняет их в отдельном ограниченном пуле потоков,
+ * чтобы большие импорты не занимали потоки Tomcat и соединения, нужные CRUD-запросам.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportJobService {
+
+    private final ImportService importService;
+
+    @Value("${app.import.workers:2}")
+    private int workers;
+
+    @Value("${app.import.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${app.import.heartbeat-seconds:30}")
+    private long heartbeatSeconds;
+
+    // Задача, отметка жизни которой старше этого срока, считается брошенной остановившимся процессом
+    @Value("${app.import.lease-seconds:120}")
+    private long leaseSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    // Задачи этого процесса: в очереди или выполняются
+    private final Set<Long> ownJobs = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("import-worker-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Import worker pool started: {} workers, queue capacity {}", workers, queueCapacity);
+    }
+
+    /**
+     * Очередь задач живёт только в памяти, поэтому после перезапуска задачи в QUEUED и RUNNING
+     * никто не выполнит. Они помечаются как FAILURE при старте и затем периодически,
+     * если их процесс перестал продлевать отметку жизни (в том числе на других экземплярах приложения).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRecovery() {
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeatAndRecover, 0, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    private void heartbeatAndRecover() {
+        try {
+            importService.heartbeat(ownJobs);
+            importService.recoverAbandonedJobs(LocalDateTime.now().minusSeconds(leaseSeconds));
+        } catch (RuntimeException e) {
+            // Исключение отменило бы все следующие запуски
+            log.error("Import job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Сохраняет файл локально, регистрирует задачу и ставит её в очередь.
+     * Файл, содержимое которого уже импортировано, не обрабатывается повторно:
+     * возвращается исходная запись истории.
+     * @param format           формат, указанный клиентом, или {@code null} для определения по имени файла.
+     * @param commitMode       фиксировать файл целиком или порциями с контрольными точками.
+     * @param invalidRowPolicy прерывать импорт на некорректной записи или пропускать её в отчёт.
+     * @throws ImportRejectedException если очередь импорта заполнена.
+     * @throws UnsupportedImportFormatException если указан неизвестный формат.
+     */
+    public ImportSubmission submit(MultipartFile file, boolean simulateError, String format,
+                                   ImportCommitMode commitMode, InvalidRowPolicy invalidRowPolicy) throws IOException {
+        ImportFormat importFormat = ImportFormat.detect(format, file.getOriginalFilename(), file.getContentType());
+        ImportSpool spool = ImportSpool.of(file);
+        ImportHistory job;
+        try {
+            Optional<ImportHistory> original = importService.findImportOfSameContent(spool.getContentHash());
+            if (original.isPresent()) {
+                spool.close();
+                log.info("Upload '{}' has the same content as import {}, skipping", file.getOriginalFilename(), original.get().getId());
+                return new ImportSubmission(original.get(), true);
+            }
+            job = importService.registerJob(spool, importFormat, commitMode, invalidRowPolicy);
+        } catch (DataIntegrityViolationException e) {
+            // Тот же файл зарегистрировал параллельный запрос: сработал уникальный индекс по content_hash
+            spool.close();
+            ImportHistory original = importService.findImportOfSameContent(spool.getContentHash()).orElseThrow(() -> e);
+            log.info("Upload '{}' was registered concurrently as import {}, skipping", file.getOriginalFilename(), original.getId());
+            return new ImportSubmission(original, true);
+        } catch (IOException | RuntimeException e) {
+            spool.close();
+            throw e;
+        }
+
+        try {
+            execute(job.getId(), () -> importService.runImport(job.getId(), spool, simulateError));
+        } catch (RejectedExecutionException e) {
+            spool.close();
+            String reason = "Import queue is full (" + queueCapacity + " jobs waiting), try again later";
+            importService.markRejected(job, reason);
+            throw new ImportRejectedException(reason);
+        }
+        log.info("Import job {} queued. Active: {}, waiting: {}", job.getId(), executor.getActiveCount(), executor.getQueue().size());
+        return new ImportSubmission(job, false);
+    }
+
+    /**
+     * Ставит в очередь продолжение пофрагментного импорта с последней контрольной точки.
+     * @param force возобновить задачу в статусе RUNNING, оставшуюся после перезапуска приложения.
+     * @throws ImportNotResumableException если задачу нельзя возобновить или её уже возобновили.
+     */
+    public ImportHistory resume(ImportHistory job, boolean force) {
+        if (job.getCommitMode() != ImportCommitMode.CHUNKED) {
+            throw new ImportNotResumableException("Import job " + job.getId() + " was not run in CHUNKED mode");
+        }
+        if (job.getObjectName() == null) {
+            throw new ImportNotResumableException("Source file of import job " + job.getId() + " is not stored");
+        }
+        String status = job.getStatus();
+        if (!"FAILURE".equals(status) && !(force && "RUNNING".equals(status))) {
+            throw new ImportNotResumableException("Import job " + job.getId() + " is " + status
+                    + ", only failed jobs can be resumed (use force for interrupted RUNNING jobs)");
+        }
+        // Статус меняется условно, чтобы два одновременных запроса не запустили задачу дважды
+        int claimed;
+        try {
+            claimed = importService.claimForResume(job.getId(), status);
+        } catch (DataIntegrityViolationException e) {
+            throw new ImportNotResumableException("Import job " + job.getId()
+                    + " cannot be resumed: the same file has been imported again since");
+        }
+        if (claimed == 0) {
+            throw new ImportNotResumableException("Import job " + job.getId() + " was changed concurrently");
+        }
+
+        try {
+            execute(job.getId(), () -> importService.resumeImport(job.getId()));
+        } catch (RejectedExecutionException e) {
+            importService.releaseResumeClaim(job.getId(), status);
+            throw new ImportRejectedException("Import queue is full (" + queueCapacity + " jobs waiting), try again later");
+        }
+        log.info("Import job {} queued for resume from item {}", job.getId(), job.getCheckpointIndex());
+        return job;
+    }
+
+    private void execute(Long jobId, Runnable task) {
+        ownJobs.add(jobId);
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    ownJobs.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            ownJobs.remove(jobId);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+        executor.shutdown();
+    }
+}
@@ -1,87 +1,330 @@
 package org.lab1.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validator;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
-import org.lab1.dto.MovieDto;
-import org.lab1.mapper.DtoMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.lab1.enums.ImportCommitMode;
+import org.lab1.enums.InvalidRowPolicy;
+import org.lab1.importer.ChunkedMovieImporter;
+import org.lab1.importer.ImportErrorReport;
+import org.lab1.importer.ImportFormat;
+import org.lab1.importer.ImportOptions;
+import org.lab1.importer.ImportResult;
+import org.lab1.importer.ImportSpool;
+import org.lab1.importer.MovieRecordReader;
 import org.lab1.model.ImportHistory;
-import org.lab1.model.Movie;
 import org.lab1.repository.ImportHistoryRepository;
-import org.lab1.repository.MovieRepository;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class ImportService {
 
-    private final MovieRepository movieRepository;
+    private static final int DETAILS_MAX_LENGTH = 1024;
+
+    private static final String ERROR_REPORT_SUFFIX = ".errors.ndjson";
+
+    // Импорты с этими статусами уже загрузили (или загружают) файл, повтор не нужен
+    private static final List<String> DEDUPLICATED_STATUSES = List.of("QUEUED", "RUNNING", "SUCCESS");
+
+    private static final List<String> ACTIVE_STATUSES = List.of("QUEUED", "RUNNING");
+
     private final ImportHistoryRepository importHistoryRepository;
-    private final Validator validator;
+    private final ChunkedMovieImporter chunkedMovieImporter;
     private final ApplicationEventPublisher eventPublisher;
     private final MinioService minioService;
+    private final SseService sseService;
 
-    public void importMoviesFromJson(MultipartFile file, boolean simulateError) {
-        String objectName = UUID.randomUUID() + "_" + file.getOriginalFilename();
+    // Пул для загрузки файлов в MinIO параллельно с разбором локальной копии
+    private final ExecutorService uploadExecutor = Executors.newCachedThreadPool();
 
-        try {
+    /**
+     * Ищет импорт файла с тем же содержимым, который завершился успешно или ещё выполняется.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ImportHistory> findImportOfSameContent(String contentHash) {
+        return importHistoryRepository.findFirstByContentHashAndStatusInOrderByIdAsc(contentHash, DEDUPLICATED_STATUSES);
+    }
 
-            minioService.uploadFile(objectName, file);
+    /**
+     * Регистрирует задачу импорта в истории со статусом QUEUED.
+     * @return запись истории, id которой служит идентификатором задачи.
+     */
+    public ImportHistory registerJob(ImportSpool spool, ImportFormat format,
+                                     ImportCommitMode commitMode, InvalidRowPolicy invalidRowPolicy) {
+        String objectName = UUID.randomUUID() + "_" + spool.getOriginalFilename();
+        ImportHistory job = new ImportHistory("QUEUED", null, "Import queued", objectName);
+        job.setContentHash(spool.getContentHash());
+        job.setFormat(format.name());
+        job.setCommitMode(commitMode);
+        job.setInvalidRowPolicy(invalidRowPolicy);
+        job.setHeartbeatAt(job.getImportDate());
+        return importHistoryRepository.save(job);
+    }
 
+    /**
+     * Выполняет импорт зарегистрированной задачи. Вызывается из пула {@link ImportJobService}
+     * и сам удаляет локальную копию файла по завершении.
+     */
+    public void runImport(Long jobId, ImportSpool spool, boolean simulateError) {
+        ImportHistory history = loadJob(jobId);
+        String objectName = history.getObjectName();
 
-            if (simulateError) {
-                throw new RuntimeException("Simulated Server Logic Error (Testing Distributed Transaction)");
+        try (spool) {
+            CompletableFuture<Void> upload = CompletableFuture.runAsync(
+                    () -> minioService.uploadFile(objectName, spool.getPath(), spool.getContentType()),
+                    uploadExecutor);
+            try {
+                execute(history, spool::openStream, upload, simulateError);
+            } finally {
+                // Локальную копию нельзя удалять, пока MinIO её дочитывает
+                upload.exceptionally(uploadError -> null).join();
             }
+        } catch (IOException e) {
+            log.warn("Could not remove local copy of import {}: {}", jobId, e.getMessage());
+        }
+    }
 
-            InputStream stream = minioService.downloadFile(objectName);
-            ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
-            List<MovieDto> movieDtos = mapper.readValue(stream, new TypeReference<>() {});
-
-            int importedCount = processMoviesTransactionally(movieDtos);
+    /**
+     * Продолжает импорт с последней контрольной точки, читая исходный файл из MinIO.
+     * Уже зафиксированные порции повторно не обрабатываются.
+     */
+    public void resumeImport(Long jobId) {
+        ImportHistory history = loadJob(jobId);
+        String objectName = history.getObjectName();
+        log.info("Resuming import job {} from item {}", jobId, history.getCheckpointIndex());
+        execute(history, () -> minioService.downloadFile(objectName), CompletableFuture.completedFuture(null), false);
+    }
 
-            importHistoryRepository.save(new ImportHistory("SUCCESS", importedCount, "Import successful", objectName));
-            eventPublisher.publishEvent(new SseEvent("movies-imported", importedCount));
+    private void execute(ImportHistory history, StreamSource source, CompletableFuture<?> upload, boolean simulateError) {
+        Long jobId = history.getId();
+        long startedAt = System.nanoTime();
+        ImportOptions options = new ImportOptions(jobId,
+                history.getCommitMode() == ImportCommitMode.CHUNKED,
+                history.getInvalidRowPolicy() == InvalidRowPolicy.SKIP,
+                valueOrZero(history.getCheckpointIndex()),
+                valueOrZero(history.getImportedCount()),
+                valueOrZero(history.getSkippedCount()),
+                history.getObjectName() + ERROR_REPORT_SUFFIX);
 
+        ImportErrorReport report;
+        try {
+            history.setStatus("RUNNING");
+            history.setHeartbeatAt(LocalDateTime.now());
+            history = importHistoryRepository.save(history);
+            publishProgress(jobId, "processing", options.imported());
+            // При возобновлении отчёт предыдущего запуска дополняется новыми строками
+            report = new ImportErrorReport(history.getErrorReportObject() != null
+                    ? minioService.downloadFile(history.getErrorReportObject()) : null, options.resumeFrom());
         } catch (Exception e) {
-            minioService.deleteFile(objectName);
+            fail(history, options, null, upload, e, startedAt);
+            return;
+        }
 
+        try (report) {
             try {
-                importHistoryRepository.save(new ImportHistory("FAILURE", null, "Error: " + e.getMessage(), null));
-            } catch (Exception dbEx) {
-                System.err.println("Could not save error log to DB (DB might be down): " + dbEx.getMessage());
+                if (simulateError) {
+                    throw new RuntimeException("Simulated Server Logic Error (Testing Distributed Transaction)");
+                }
+
+                ImportFormat format = ImportFormat.valueOf(history.getFormat());
+                ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+                IntConsumer progress = rows -> publishProgress(jobId, "processing", rows);
+                ImportResult result;
+                try (MovieRecordReader reader = format.open(source.open(), mapper)) {
+                    result = options.chunkedCommit()
+                            ? chunkedMovieImporter.importInChunks(reader, options, report, upload, progress)
+                            : chunkedMovieImporter.importAtomically(reader, options, report, upload, progress);
+                }
+                complete(jobId, options, result, report, startedAt);
+            } catch (Exception e) {
+                fail(history, options, report, upload, e, startedAt);
             }
+        } catch (IOException e) {
+            log.warn("Could not remove error report of import {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void complete(Long jobId, ImportOptions options, ImportResult result,
+                          ImportErrorReport report, long startedAt) throws IOException {
+        // Запись перечитывается: при пофрагментной фиксации контрольные точки обновлялись в базе
+        ImportHistory history = loadJob(jobId);
+        storeErrorReport(history, options, report);
+        history.setStatus("SUCCESS");
+        history.setImportedCount(result.imported());
+        history.setSkippedCount(result.skipped());
+        history.setCheckpointIndex(result.processed());
+        history.setDetails(result.skipped() > 0
+                ? "Import successful, " + result.skipped() + " invalid records skipped"
+                : "Import successful");
+        int importedNow = result.imported() - options.imported();
+        recordThroughput(history, importedNow, startedAt);
+        importHistoryRepository.save(history);
 
-            throw new RuntimeException("Import failed: " + e.getMessage(), e);
+        publishProgress(jobId, "completed", result.imported());
+        eventPublisher.publishEvent(new SseEvent("movies-imported", importedNow));
+    }
+
+    /**
+     * Фиксирует сбой задачи. Пофрагментный импорт, файл которого успел попасть в MinIO,
+     * сохраняет файл и контрольную точку для возобновления; иначе файл удаляется.
+     */
+    private void fail(ImportHistory job, ImportOptions options, ImportErrorReport report,
+                      CompletableFuture<?> upload, Exception e, long startedAt) {
+        Long jobId = job.getId();
+        log.error("Import job {} failed: {}", jobId, e.getMessage());
+        int importedNow = 0;
+        boolean uploaded = upload.handle((ignored, uploadError) -> uploadError == null).join();
+        boolean resumable = options.chunkedCommit() && uploaded;
+        if (!resumable) {
+            minioService.deleteFile(job.getObjectName());
+        }
+
+        try {
+            ImportHistory history = loadJob(jobId);
+            history.setStatus("FAILURE");
+            if (resumable) {
+                if (report != null) {
+                    storeErrorReport(history, options, report);
+                }
+                history.setDetails(truncate("Error: " + e.getMessage()
+                        + " (resumable from item " + valueOrZero(history.getCheckpointIndex()) + ")"));
+            } else {
+                history.setDetails(truncate("Error: " + e.getMessage()));
+                history.setObjectName(null);
+            }
+            importedNow = valueOrZero(history.getImportedCount()) - options.imported();
+            recordThroughput(history, importedNow, startedAt);
+            importHistoryRepository.save(history);
+        } catch (Exception dbEx) {
+            log.error("Could not save error log to DB (DB might be down): {}", dbEx.getMessage());
+        }
+        publishProgress(jobId, "failed", 0);
+        if (importedNow > 0) {
+            // Порции, зафиксированные до сбоя, уже в базе
+            eventPublisher.publishEvent(new SseEvent("movies-imported", importedNow));
         }
     }
 
-    @Transactional(rollbackFor = Exception.class)
-    public int processMoviesTransactionally(List<MovieDto> movieDtos) {
-        for (int i = 0; i < movieDtos.size(); i++) {
-            MovieDto dto = movieDtos.get(i);
-            Set<ConstraintViolation<MovieDto>> violations = validator.validate(dto);
-            if (!violations.isEmpty()) {
-                String errorDetails = violations.stream()
-                        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
-                        .collect(Collectors.joining("; "));
-                throw new RuntimeException("Validation failed at item " + i + ": " + errorDetails);
+    private void storeErrorReport(ImportHistory history, ImportOptions options, ImportErrorReport report) throws IOException {
+        if (report.getCount() == 0) {
+            // Выгруженный ранее отчёт мог содержать только записи, обработанные заново без ошибок
+            if (history.getErrorReportObject() != null) {
+                minioService.deleteFile(history.getErrorReportObject());
+                history.setErrorReportObject(null);
             }
+            return;
+        }
+        if (report.hasUnpublished()) {
+            report.flush();
+            minioService.uploadFile(options.errorReportObject(), report.getPath(), ImportErrorReport.CONTENT_TYPE);
+            report.markPublished();
         }
-        List<Movie> movies = movieDtos.stream().map(DtoMapper::toMovieEntity).collect(Collectors.toList());
-        movieRepository.saveAll(movies);
-        return movies.size();
+        history.setErrorReportObject(options.errorReportObject());
+    }
+
+    /**
+     * Помечает задачу как отклонённую, если её не удалось поставить в очередь.
+     */
+    public void markRejected(ImportHistory history, String reason) {
+        history.setStatus("FAILURE");
+        history.setDetails(truncate("Error: " + reason));
+        history.setObjectName(null);
+        importHistoryRepository.save(history);
+    }
+
+    /**
+     * Переводит задачу в QUEUED, если её статус всё ещё {@code expected}.
+     * @return число изменённых записей: 0, если задачу уже перехватил другой запрос.
+     */
+    public int claimForResume(Long jobId, String expected) {
+        return importHistoryRepository.compareAndSetStatus(jobId, expected, "QUEUED", LocalDateTime.now());
+    }
+
+    /**
+     * Возвращает задаче прежний статус, если её не удалось поставить в очередь.
+     */
+    public void releaseResumeClaim(Long jobId, String previous) {
+        importHistoryRepository.compareAndSetStatus(jobId, "QUEUED", previous, LocalDateTime.now());
+    }
+
+    /**
+     * Продлевает отметку жизни задач, которые выполняет или держит в очереди этот процесс.
+     */
+    public void heartbeat(Collection<Long> jobIds) {
+        if (!jobIds.isEmpty()) {
+            importHistoryRepository.touchHeartbeat(jobIds, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Помечает как FAILURE задачи в QUEUED и RUNNING, отметка жизни которых не обновлялась с {@code cutoff}:
+     * процесс, выполнявший их, остановился. Пофрагментная задача, успевшая начаться, сохраняет файл
+     * и контрольную точку и может быть возобновлена; у остальных файл удаляется.
+     */
+    public void recoverAbandonedJobs(LocalDateTime cutoff) {
+        for (ImportHistory job : importHistoryRepository.findAbandoned(ACTIVE_STATUSES, cutoff)) {
+            boolean resumable = job.getCommitMode() == ImportCommitMode.CHUNKED
+                    && "RUNNING".equals(job.getStatus()) && job.getObjectName() != null;
+            String details = resumable
+                    ? "Error: import was interrupted by a restart (resumable from item " + valueOrZero(job.getCheckpointIndex()) + ")"
+                    : "Error: import was interrupted by a restart, upload the file again";
+            if (importHistoryRepository.markAbandoned(job.getId(), job.getStatus(), cutoff, details,
+                    resumable ? job.getObjectName() : null) == 0) {
+                continue;
+            }
+            log.warn("Import job {} was abandoned in status {}, marked as failed", job.getId(), job.getStatus());
+            if (!resumable && job.getObjectName() != null) {
+                minioService.deleteFile(job.getObjectName());
+            }
+            if (valueOrZero(job.getImportedCount()) > 0) {
+                // Зафиксированные порции остаются в базе
+                eventPublisher.publishEvent(new SseEvent("movies-imported", job.getImportedCount()));
+            }
+        }
+    }
+
+    private ImportHistory loadJob(Long jobId) {
+        return importHistoryRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalStateException("Import job " + jobId + " not found"));
+    }
+
+    private void recordThroughput(ImportHistory history, int rows, long startedAt) {
+        long durationMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        history.setDurationMs(durationMs);
+        history.setRowsPerSecond(rows * 1000.0 / durationMs);
+    }
+
+    private void publishProgress(Long jobId, String stage, int rows) {
+        // Прогресс отправляется напрямую: события через eventPublisher внутри транзакции импорта
+        // дошли бы до клиентов только после её фиксации
+        sseService.sendEventToAll("import-progress", Map.of("jobId", jobId, "stage", stage, "rows", rows));
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static String truncate(String details) {
+        return details.length() <= DETAILS_MAX_LENGTH ? details : details.substring(0, DETAILS_MAX_LENGTH - 3) + "...";
     }
 
     @Transactional(readOnly = true)
@@ -89,7 +332,22 @@ public class ImportService {
         return importHistoryRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public Optional<ImportHistory> getImportJob(Long jobId) {
+        return importHistoryRepository.findById(jobId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
+    }
+
     public InputStream getFileStream(String objectName) {
         return minioService.downloadFile(objectName);
     }
-}
\ No newline at end of file
+
+    @FunctionalInterface
+    private interface StreamSource {
+        InputStream open() throws IOException;
+    }
+}
@@ -0,0 +1,11 @@
+package org.lab1.service;
+
+import org.lab1.model.ImportHistory;
+
+/**
+ * Результат постановки файла на импорт.
+ * @param job       новая задача или, для повторной загрузки, исходный импорт того же файла.
+ * @param duplicate {@code true}, если файл с таким содержимым уже импортирован или импортируется.
+ */
+public record ImportSubmission(ImportHistory job, boolean duplicate) {
+}
@@ -0,0 +1,159 @@
+package org.lab1.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.infinispan.AdvancedCache;
+import org.infinispan.CacheStream;
+import org.infinispan.hibernate.cache.commons.InfinispanBaseRegion;
+import org.infinispan.stats.Stats;
+import org.lab1.model.Coordinates;
+import org.lab1.model.Location;
+import org.lab1.model.Movie;
+import org.lab1.model.Person;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Метрики регионов L2-кэша сущностей: попадания и промахи (статистика Hibernate),
+ * вытеснения, число записей и занятая память (статистика Infinispan).
+ * Все метрики имеют тег {@code region} с именем класса сущности.
+ * <p>
+ * Какие метрики памяти имеют смысл, зависит от границы региона:
+ * <ul>
+ *     <li>{@code l2.cache.memory.used{storage=data}} - только для регионов с границей max-size, иначе 0;</li>
+ *     <li>{@code l2.cache.memory.used{storage=off-heap}} - только для хранения вне кучи (entity-off-heap);</li>
+ *     <li>{@code l2.cache.memory.estimated} - для любого региона, в том числе с границей max-count:
+ *     число записей, умноженное на средний сериализованный размер выборки записей. Объекты в куче
+ *     занимают больше, поэтому это оценка снизу, пригодная для сравнения регионов и подбора .memory.size.</li>
+ * </ul>
+ */
+@Component
+@RequiredArgsConstructor
+public class L2CacheMetrics {
+
+    private static final List<Class<?>> CACHED_ENTITIES = List.of(Movie.class, Person.class, Location.class, Coordinates.class);
+
+    // Размер записей оценивается по выборке и пересчитывается не чаще раза в минуту
+    private static final int ENTRY_SIZE_SAMPLE = 100;
+    private static final long ENTRY_SIZE_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, EntrySize> entrySizes = new ConcurrentHashMap<>();
+
+    private SessionFactoryImplementor sessionFactory;
+
+    @PostConstruct
+    public void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (Class<?> entity : CACHED_ENTITIES) {
+            String region = entity.getName();
+            String tag = entity.getSimpleName();
+
+            FunctionCounter.builder("l2.cache.requests", region, r -> hibernateStat(r, CacheRegionStatistics::getHitCount))
+                    .tag("region", tag).tag("result", "hit").register(meterRegistry);
+            FunctionCounter.builder("l2.cache.requests", region, r -> hibernateStat(r, CacheRegionStatistics::getMissCount))
+                    .tag("region", tag).tag("result", "miss").register(meterRegistry);
+            FunctionCounter.builder("l2.cache.puts", region, r -> hibernateStat(r, CacheRegionStatistics::getPutCount))
+                    .tag("region", tag).register(meterRegistry);
+            Gauge.builder("l2.cache.hit.ratio", region, this::hitRatio)
+                    .tag("region", tag).register(meterRegistry);
+
+            FunctionCounter.builder("l2.cache.evictions", region, r -> infinispanStat(r, Stats::getEvictions))
+                    .tag("region", tag).register(meterRegistry);
+            Gauge.builder("l2.cache.entries", region, r -> infinispanStat(r, Stats::getApproximateEntriesInMemory))
+                    .tag("region", tag).register(meterRegistry);
+            // Объём данных известен только для регионов с границей по памяти (max-size)
+            Gauge.builder("l2.cache.memory.used", region, r -> infinispanStat(r, Stats::getDataMemoryUsed))
+                    .tag("region", tag).tag("storage", "data").baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("l2.cache.memory.used", region, r -> infinispanStat(r, Stats::getOffHeapMemoryUsed))
+                    .tag("region", tag).tag("storage", "off-heap").baseUnit("bytes").register(meterRegistry);
+            Gauge.builder("l2.cache.memory.estimated", region, this::estimatedMemory)
+                    .tag("region", tag).baseUnit("bytes").register(meterRegistry);
+        }
+    }
+
+    private double estimatedMemory(String region) {
+        if (!(sessionFactory.getCache().getRegion(region) instanceof InfinispanBaseRegion infinispanRegion)) {
+            return Double.NaN;
+        }
+        AdvancedCache<?, ?> cache = infinispanRegion.getCache();
+        long entries = cache.getStats().getApproximateEntriesInMemory();
+        if (entries == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        EntrySize entrySize = entrySizes.get(region);
+        if (entrySize == null || now - entrySize.sampledAt() > ENTRY_SIZE_TTL_NANOS) {
+            entrySize = new EntrySize(sampleEntrySize(cache), now);
+            entrySizes.put(region, entrySize);
+        }
+        return entries * entrySize.bytes();
+    }
+
+    private static double sampleEntrySize(AdvancedCache<?, ?> cache) {
+        long total = 0;
+        int sampled = 0;
+        try (CacheStream<? extends Map.Entry<?, ?>> stream = cache.entrySet().stream()) {
+            Iterator<? extends Map.Entry<?, ?>> entries = stream.limit(ENTRY_SIZE_SAMPLE).iterator();
+            while (entries.hasNext()) {
+                Map.Entry<?, ?> entry = entries.next();
+                long keySize = serializedSize(entry.getKey());
+                long valueSize = serializedSize(entry.getValue());
+                if (keySize > 0 && valueSize > 0) {
+                    total += keySize + valueSize;
+                    sampled++;
+                }
+            }
+        }
+        return sampled > 0 ? (double) total / sampled : Double.NaN;
+    }
+
+    private static long serializedSize(Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            // Несериализуемая запись в оценку не входит
+            return -1;
+        }
+        return bytes.size();
+    }
+
+    private record EntrySize(double bytes, long sampledAt) {
+    }
+
+    private double hibernateStat(String region, ToDoubleFunction<CacheRegionStatistics> stat) {
+        CacheRegionStatistics statistics = sessionFactory.getStatistics().getDomainDataRegionStatistics(region);
+        return statistics != null ? stat.applyAsDouble(statistics) : 0;
+    }
+
+    private double hitRatio(String region) {
+        double hits = hibernateStat(region, CacheRegionStatistics::getHitCount);
+        double total = hits + hibernateStat(region, CacheRegionStatistics::getMissCount);
+        return total > 0 ? hits / total : Double.NaN;
+    }
+
+    private double infinispanStat(String region, ToDoubleFunction<Stats> stat) {
+        if (!(sessionFactory.getCache().getRegion(region) instanceof InfinispanBaseRegion infinispanRegion)) {
+            return Double.NaN;
+        }
+        return stat.applyAsDouble(infinispanRegion.getCache().getStats());
+    }
+}
@@ -6,9 +6,9 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 
 @Service
 @RequiredArgsConstructor
@@ -67,14 +67,14 @@ public class MinioService {
         throw new RuntimeException("Could not connect to MinIO after " + (maxAttempts * delay / 1000) + " seconds. Exiting.");
     }
 
-    public void uploadFile(String objectName, MultipartFile file) {
+    public void uploadFile(String objectName, Path file, String contentType) {
         try {
-            minioClient.putObject(
-                    PutObjectArgs.builder()
+            minioClient.uploadObject(
+                    UploadObjectArgs.builder()
                             .bucket(bucketName)
                             .object(objectName)
-                            .stream(file.getInputStream(), file.getSize(), -1)
-                            .contentType(file.getContentType())
+                            .filename(file.toString())
+                            .contentType(contentType)
                             .build());
         } catch (Exception e) {
             throw new RuntimeException("Error uploading file to MinIO: " + e.getMessage(), e);
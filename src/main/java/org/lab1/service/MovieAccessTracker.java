@@ -0,0 +1,108 @@
+package org.lab1.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Считает обращения к фильмам и сохраняет самые востребованные id в файл снимка.
+ * Снимок записывается периодически и при остановке; при следующем запуске по нему
+ * прогревается L2-кэш ({@link CacheWarmupRunner}). Формат - один id в строке, по убыванию частоты.
+ */
+@Component
+@Slf4j
+public class MovieAccessTracker {
+
+    @Value("${app.cache.warmup.snapshot-file:cache-warmup.snapshot}")
+    private Path snapshotFile;
+
+    @Value("${app.cache.warmup.snapshot-size:5000}")
+    private int snapshotSize;
+
+    @Value("${app.cache.warmup.snapshot-interval-seconds:300}")
+    private long snapshotIntervalSeconds;
+
+    private final Map<Integer, LongAdder> accessCounts = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void init() {
+        snapshotExecutor.scheduleWithFixedDelay(this::saveSnapshot,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotExecutor.shutdownNow();
+        saveSnapshot();
+    }
+
+    public void recordAccess(Integer movieId) {
+        if (movieId != null) {
+            accessCounts.computeIfAbsent(movieId, id -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Id из снимка предыдущего запуска, самые востребованные первыми; пустой список, если снимка нет.
+     */
+    public List<Integer> loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return Collections.emptyList();
+        }
+        try {
+            List<Integer> ids = new ArrayList<>();
+            for (String line : Files.readAllLines(snapshotFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    ids.add(Integer.valueOf(line.trim()));
+                }
+            }
+            return ids;
+        } catch (IOException | NumberFormatException e) {
+            log.warn("Could not read cache warm-up snapshot {}: {}", snapshotFile, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private void saveSnapshot() {
+        if (accessCounts.isEmpty()) {
+            // Ничего не запрашивалось - снимок предыдущего запуска остаётся актуальным
+            return;
+        }
+        // Счётчики продолжают расти во время записи, поэтому сортируются их текущие значения
+        String content = accessCounts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+                .limit(snapshotSize)
+                .map(entry -> entry.getKey() + "\n")
+                .collect(Collectors.joining());
+        try {
+            // Запись через временный файл: при сбое во время записи остаётся прежний снимок
+            Path absolute = snapshotFile.toAbsolutePath();
+            Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Could not write cache warm-up snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+}
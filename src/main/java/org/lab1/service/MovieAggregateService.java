@@ -0,0 +1,139 @@
+package org.lab1.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.lab1.model.Movie;
+import org.lab1.model.MovieAggregate;
+import org.lab1.repository.MovieAggregateRepository;
+import org.lab1.repository.MovieRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Поддерживает материализованные агрегаты по фильмам ({@link MovieAggregate}).
+ * Изменения копятся в памяти транзакции вызывающего кода и записываются одним приращением
+ * непосредственно перед её фиксацией: строка агрегатов блокируется только на время фиксации,
+ * а не на всю транзакцию (например, весь импорт файла).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieAggregateService {
+
+    private final MovieAggregateRepository movieAggregateRepository;
+    private final MovieRepository movieRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Пересчитывает агрегаты по всей таблице фильмов; выполняется только по запросу, для восстановления.
+     * Строка агрегатов блокируется до пересчёта: транзакции, ещё не применившие свои приращения,
+     * дождутся его фиксации, а их фильмы в пересчёт не попадут, поэтому ни одно приращение не теряется.
+     */
+    @Transactional
+    public void rebuild() {
+        if (movieAggregateRepository.lockSingleton().isEmpty()) {
+            movieAggregateRepository.saveAndFlush(new MovieAggregate(MovieAggregate.SINGLETON_ID, 0L, 0L));
+            movieAggregateRepository.lockSingleton();
+        }
+        movieAggregateRepository.recompute();
+        log.info("Movie aggregates recomputed");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void movieAdded(Movie movie) {
+        addDelta(movie.getGoldenPalmCount(), 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moviesAdded(Collection<Movie> movies) {
+        if (!movies.isEmpty()) {
+            addDelta(sumGoldenPalms(movies), movies.size());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void movieChanged(int oldGoldenPalms, int newGoldenPalms) {
+        if (oldGoldenPalms != newGoldenPalms) {
+            addDelta(newGoldenPalms - oldGoldenPalms, 0);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moviesRemoved(Collection<Movie> movies) {
+        if (!movies.isEmpty()) {
+            addDelta(-sumGoldenPalms(movies), -movies.size());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moviesRemoved(long movies, long goldenPalms) {
+        if (movies > 0) {
+            addDelta(-goldenPalms, -movies);
+        }
+    }
+
+    /**
+     * Сумма золотых пальмовых ветвей по всем фильмам. Если строка агрегатов ещё не создана,
+     * сумма считается агрегатным запросом.
+     */
+    @Transactional(readOnly = true)
+    public long getGoldenPalmSum() {
+        return movieAggregateRepository.findById(MovieAggregate.SINGLETON_ID)
+                .map(MovieAggregate::getGoldenPalmSum)
+                .orElseGet(movieRepository::sumGoldenPalmCount);
+    }
+
+    private void addDelta(long goldenPalms, long movies) {
+        PendingDelta pending = (PendingDelta) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDelta();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new DeltaSynchronization(pending));
+        }
+        pending.goldenPalms += goldenPalms;
+        pending.movies += movies;
+    }
+
+    private static long sumGoldenPalms(Collection<Movie> movies) {
+        return movies.stream().mapToLong(Movie::getGoldenPalmCount).sum();
+    }
+
+    private static final class PendingDelta {
+        private long goldenPalms;
+        private long movies;
+    }
+
+    private final class DeltaSynchronization implements TransactionSynchronization {
+
+        private final PendingDelta pending;
+
+        private DeltaSynchronization(PendingDelta pending) {
+            this.pending = pending;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (pending.goldenPalms == 0 && pending.movies == 0) {
+                return;
+            }
+            // Сначала сбрасываются изменения фильмов: иначе сброс при фиксации мог бы ждать чужих
+            // блокировок, уже удерживая строку агрегатов, и две транзакции заблокировали бы друг друга
+            entityManager.flush();
+            movieAggregateRepository.addDelta(pending.goldenPalms, pending.movies);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MovieAggregateService.this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.lab1.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lab1.exception.InvalidCursorException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Позиция курсорной пагинации фильмов: поле и направление сортировки и ключи последней выданной строки.
+ * Клиенту передаётся как непрозрачный токен (base64url от JSON).
+ * Сортировать можно только по индексированным уникальным полям, иначе поиск позиции не использует индекс.
+ */
+record MovieCursor(String field, Sort.Direction direction, Map<String, Object> keys) {
+
+    static final Set<String> SORTABLE_FIELDS = Set.of("id", "name");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    static MovieCursor first(Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (sort.stream().count() > 1 || !SORTABLE_FIELDS.contains(order.getProperty())) {
+            throw new InvalidCursorException("Cursor pagination supports sorting by one of " + SORTABLE_FIELDS);
+        }
+        return new MovieCursor(order.getProperty(), order.getDirection(), Map.of());
+    }
+
+    static MovieCursor decode(String token) {
+        try {
+            Map<String, Object> data = MAPPER.readValue(Base64.getUrlDecoder().decode(token), new TypeReference<>() {});
+            String field = (String) data.get("f");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> keys = (Map<String, Object>) data.get("k");
+            if (!SORTABLE_FIELDS.contains(field) || keys == null) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return new MovieCursor(field, Sort.Direction.fromString((String) data.get("d")), keys);
+        } catch (IOException | IllegalArgumentException | ClassCastException e) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+    }
+
+    MovieCursor after(Map<String, ?> lastKeys) {
+        return new MovieCursor(field, direction, new LinkedHashMap<>(lastKeys));
+    }
+
+    String encode() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("f", field);
+        data.put("d", direction.name());
+        data.put("k", keys);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(data));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    /**
+     * Сортировка с id в качестве последнего ключа, чтобы порядок был строгим.
+     */
+    Sort sort() {
+        Sort sort = Sort.by(direction, field);
+        return "id".equals(field) ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    ScrollPosition position() {
+        return keys.isEmpty() ? ScrollPosition.keyset() : ScrollPosition.forward(keys);
+    }
+}
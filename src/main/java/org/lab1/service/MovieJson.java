@@ -0,0 +1,52 @@
+package org.lab1.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * Готовое JSON-представление одной версии фильма ({@link org.lab1.dto.MovieDto}).
+ * В составе страницы записывается как есть, без повторного отображения и сериализации.
+ */
+public final class MovieJson implements JsonSerializable {
+
+    private final int id;
+    private final int version;
+    // Хранит и строку, и её UTF-8 байты после первой записи
+    private final SerializedString json;
+
+    MovieJson(int id, int version, String json) {
+        this.id = id;
+        this.version = version;
+        this.json = new SerializedString(json);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * UTF-8 байты представления. Массив общий для всех запросов и не должен изменяться.
+     */
+    public byte[] utf8() {
+        return json.asUnquotedUTF8();
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+}
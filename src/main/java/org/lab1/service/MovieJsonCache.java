@@ -0,0 +1,144 @@
+package org.lab1.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.lab1.dto.MovieDto;
+import org.lab1.mapper.DtoMapper;
+import org.lab1.model.Movie;
+import org.lab1.repository.MovieBulkOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Кэш JSON-представлений фильмов с ключом (id, версия). Заполняется при чтении:
+ * фильм отображается в DTO и сериализуется, только если его текущей версии нет в кэше.
+ * Устаревшая версия не может быть выдана, поэтому события {@link MovieService}
+ * нужны только для освобождения памяти. Хранит не более {@code app.cache.movie-json.max-entries} фильмов.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovieJsonCache {
+
+    // ObjectMapper Spring MVC: фрагменты совпадают с тем, что вернул бы конвертер сообщений
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cache.movie-json.max-entries:10000}")
+    private int maxEntries;
+
+    private Map<Integer, MovieJson> fragments;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        fragments = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, MovieJson> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        hits = Counter.builder("movie.json.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("movie.json.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("movie.json.cache.size", this, MovieJsonCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Представление фильма в его текущей версии. Связанные сущности фильма
+     * должны быть доступны для загрузки, если представления нет в кэше.
+     */
+    public MovieJson get(Movie movie) {
+        int version = versionOf(movie);
+        synchronized (this) {
+            MovieJson cached = fragments.get(movie.getId());
+            if (cached != null && cached.getVersion() == version) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        MovieJson json = new MovieJson(movie.getId(), version, serialize(DtoMapper.toMovieDto(movie)));
+        synchronized (this) {
+            // Параллельное чтение могло уже положить более новую версию
+            MovieJson cached = fragments.get(movie.getId());
+            if (cached == null || cached.getVersion() < version) {
+                fragments.put(movie.getId(), json);
+            }
+        }
+        return json;
+    }
+
+    public List<MovieJson> getAll(List<Movie> movies) {
+        return movies.stream().map(this::get).toList();
+    }
+
+    public static int versionOf(Movie movie) {
+        return movie.getVersion() == null ? 0 : movie.getVersion();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieEvent(SseEvent event) {
+        switch (event.getName()) {
+            case "movie-updated" -> {
+                if (event.getData() instanceof MovieDto dto) {
+                    remove(dto.getId());
+                }
+            }
+            // Данные события удаления - id фильма
+            case "movie-deleted" -> {
+                if (event.getData() instanceof Integer id) {
+                    remove(id);
+                }
+            }
+            case "oscars-redistributed" -> {
+                if (event.getPrevious() instanceof MovieBulkOperations.RedistributedOscars redistributed) {
+                    removeAll(redistributed.movieIds());
+                }
+            }
+            case "movies-deleted-by-genre" -> clear();
+            default -> {
+            }
+        }
+    }
+
+    private String serialize(MovieDto dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize movie " + dto.getId(), e);
+        }
+    }
+
+    private synchronized void remove(Integer id) {
+        fragments.remove(id);
+    }
+
+    private synchronized void removeAll(List<Integer> ids) {
+        ids.forEach(fragments::remove);
+    }
+
+    private synchronized void clear() {
+        log.debug("Movie JSON cache: {} entries dropped", fragments.size());
+        fragments.clear();
+    }
+
+    private synchronized int size() {
+        return fragments.size();
+    }
+}
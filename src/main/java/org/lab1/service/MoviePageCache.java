@@ -0,0 +1,164 @@
+package org.lab1.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.lab1.dto.MovieDto;
+import org.lab1.enums.MovieGenre;
+import org.lab1.repository.MovieBulkOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Кэш страниц списка фильмов, ключ - фильтр и параметры страницы.
+ * Вытесняет давно не запрошенные страницы сверх {@code app.cache.movie-pages.max-entries}.
+ * Сбрасывается по событиям {@link MovieService}: по возможности только страницы,
+ * фильтр которых совпадает с изменённым фильмом.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MoviePageCache {
+
+    private static final Set<String> ALL_GENRES = Arrays.stream(MovieGenre.values())
+            .map(genre -> normalize(genre.name()))
+            .collect(Collectors.toSet());
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cache.movie-pages.max-entries:500}")
+    private int maxEntries;
+
+    private Map<PageKey, Page<MovieJson>> pages;
+    // Увеличивается при каждом сбросе: страница, загрузка которой началась до сброса, не кэшируется
+    private long generation;
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, Page<MovieJson>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        hits = Counter.builder("movie.page.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("movie.page.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("movie.page.cache.size", this, MoviePageCache::size).register(meterRegistry);
+    }
+
+    public Page<MovieJson> get(String name, String genre, String directorName, Pageable pageable,
+                              Supplier<Page<MovieJson>> loader) {
+        PageKey key = new PageKey(normalize(name), normalize(genre), normalize(directorName),
+                pageable.isPaged() ? pageable.getPageNumber() : -1,
+                pageable.isPaged() ? pageable.getPageSize() : -1,
+                pageable.getSort().toString());
+        long loadGeneration;
+        synchronized (this) {
+            Page<MovieJson> cached = pages.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        Page<MovieJson> page = loader.get();
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                pages.put(key, page);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Выполняется после фиксации и раньше рассылки SSE, чтобы клиенты, перезапросившие список, не получили старую страницу.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieEvent(SseEvent event) {
+        switch (event.getName()) {
+            case "movie-created", "movie-updated" ->
+                    invalidate(key -> matches(key, event.getData()) || matches(key, event.getPrevious()));
+            // Данные события удаления - только id, сам фильм передаётся как предыдущее состояние
+            case "movie-deleted" -> invalidate(key -> matches(key,
+                    event.getPrevious() != null ? event.getPrevious() : event.getData()));
+            case "movies-deleted-by-genre" -> {
+                String genre = event.getData() instanceof Map<?, ?> data
+                        ? normalize(String.valueOf(data.get("genre")))
+                        : null;
+                invalidate(key -> genre == null || key.genre() == null || key.genre().equals(genre));
+            }
+            case "oscars-redistributed" -> invalidate(key -> key.genre() == null || genres(event.getPrevious()).contains(key.genre()));
+            case "movies-imported" -> invalidate(key -> true);
+            default -> {
+            }
+        }
+    }
+
+    private synchronized void invalidate(Predicate<PageKey> affected) {
+        generation++;
+        int before = pages.size();
+        pages.keySet().removeIf(affected);
+        log.debug("Movie page cache: {} of {} pages invalidated", before - pages.size(), before);
+    }
+
+    private synchronized int size() {
+        return pages.size();
+    }
+
+    /**
+     * Попадает ли фильм под фильтр страницы. Событие без данных о фильме затрагивает все страницы.
+     */
+    private static boolean matches(PageKey key, Object movie) {
+        if (!(movie instanceof MovieDto dto)) {
+            return movie != null;
+        }
+        String director = dto.getDirector() == null ? null : normalize(dto.getDirector().getName());
+        return (key.name() == null || key.name().equals(normalize(dto.getName())))
+                && (key.genre() == null || dto.getGenre() != null && key.genre().equals(normalize(dto.getGenre().name())))
+                && (key.directorName() == null || key.directorName().equals(director));
+    }
+
+    /**
+     * Жанры, затронутые событием; без списка жанров событие затрагивает все страницы.
+     */
+    private static Set<String> genres(Object affected) {
+        if (affected instanceof MovieBulkOperations.RedistributedOscars redistributed) {
+            affected = List.of(redistributed.from(), redistributed.to());
+        }
+        if (!(affected instanceof Collection<?> genres)) {
+            return ALL_GENRES;
+        }
+        return genres.stream().map(genre -> normalize(String.valueOf(genre))).collect(Collectors.toSet());
+    }
+
+    private static String normalize(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private record PageKey(String name, String genre, String directorName, int page, int size, String sort) {
+    }
+}
@@ -3,28 +3,41 @@ package org.lab1.service;
 import lombok.RequiredArgsConstructor;
 import org.lab1.dto.CoordinatesDto;
 import org.lab1.dto.MovieDto;
+import org.lab1.dto.MovieWindowDto;
 import org.lab1.dto.PersonDto;
+import org.lab1.enums.CountMode;
 import org.lab1.enums.MovieGenre;
 import org.lab1.exception.MovieNotFoundException;
+import org.lab1.exception.MovieVersionMismatchException;
 import org.lab1.mapper.DtoMapper;
 import org.lab1.model.Coordinates;
 import org.lab1.model.Movie;
 import org.lab1.model.Person;
+import org.lab1.repository.MovieBulkOperations;
 import org.lab1.repository.MovieRepository;
 import org.lab1.repository.PersonRepository;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.Predicate;
 
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntPredicate;
 
 @Service
 @RequiredArgsConstructor
@@ -32,14 +45,84 @@ public class MovieService {
 
     private final MovieRepository movieRepository;
     private final PersonRepository personRepository;
+    private final PersonInterningService personInterningService;
+    private final MovieAggregateService movieAggregateService;
+    private final MoviePageCache moviePageCache;
+    private final MovieAccessTracker movieAccessTracker;
+    private final MovieJsonCache movieJsonCache;
     private final SseService sseService;
     private final ApplicationEventPublisher eventPublisher;
 
-    public Page<MovieDto> findAllMovies(Pageable pageable, String name, String genre, String directorName) {
-        Specification<Movie> spec = (root, query, criteriaBuilder) -> {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Пути графа Movie.forDto для fluent-запросов, которые не принимают именованный граф
+    private static final List<String> DTO_FETCH_PATHS = List.of(
+            "coordinates", "director.location", "screenwriter.location", "operator.location");
+
+    /**
+     * Элементы страницы - готовые JSON-представления из {@link MovieJsonCache}.
+     */
+    public Page<MovieJson> findAllMovies(Pageable pageable, String name, String genre, String directorName) {
+        return moviePageCache.get(name, genre, directorName, pageable,
+                () -> loadMoviePage(pageable, name, genre, directorName));
+    }
+
+    private Page<MovieJson> loadMoviePage(Pageable pageable, String name, String genre, String directorName) {
+        Page<Movie> moviePage = movieRepository.findAll(buildFilter(name, genre, directorName), pageable);
+        return new PageImpl<>(movieJsonCache.getAll(moviePage.getContent()), pageable, moviePage.getTotalElements());
+    }
+
+    /**
+     * Курсорная пагинация: следующая порция ищется по ключам последней строки предыдущей,
+     * поэтому стоимость запроса не растёт с глубиной и count(*) не выполняется без необходимости.
+     * @param cursor токен из предыдущего ответа или {@code null} для первой порции.
+     * @param sort   сортировка первой порции; для следующих берётся из курсора.
+     */
+    public MovieWindowDto scrollMovies(String cursor, int size, Sort sort, CountMode countMode,
+                                       String name, String genre, String directorName) {
+        Specification<Movie> spec = buildFilter(name, genre, directorName);
+        MovieCursor position = cursor == null || cursor.isEmpty() ? MovieCursor.first(sort) : MovieCursor.decode(cursor);
+
+        Window<Movie> window = movieRepository.findBy(spec, query -> query
+                .sortBy(position.sort())
+                .limit(size)
+                .project(DTO_FETCH_PATHS)
+                .scroll(position.position()));
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+            nextCursor = position.after(last.getKeys()).encode();
+        }
+
+        Long total = null;
+        boolean estimated = false;
+        boolean filtered = notEmpty(name) || notEmpty(genre) || notEmpty(directorName);
+        if (countMode == CountMode.ESTIMATE && !filtered) {
+            // Статистика планировщика: мгновенно, но точна лишь до последнего ANALYZE/autovacuum
+            Long estimate = movieRepository.estimateRowCount();
+            if (estimate != null && estimate >= 0) {
+                total = estimate;
+                estimated = true;
+            }
+        }
+        if (total == null && countMode != CountMode.NONE) {
+            total = movieRepository.count(spec);
+        }
+        return new MovieWindowDto(DtoMapper.toMovieDtoList(window.getContent()), nextCursor, window.hasNext(), total, estimated);
+    }
+
+    private static boolean notEmpty(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    private Specification<Movie> buildFilter(String name, String genre, String directorName) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             if (name != null && !name.isEmpty()) {
-                predicates.add(criteriaBuilder.equal(criteriaBuilder.lower(root.get("name")), name.toLowerCase()));
+                // Уникальный индекс по name_key (миграция V3)
+                predicates.add(criteriaBuilder.equal(root.get("nameKey"), Movie.nameKeyOf(name)));
             }
             if (genre != null && !genre.isEmpty()) {
                 predicates.add(criteriaBuilder.equal(root.get("genre"), MovieGenre.valueOf(genre.toUpperCase())));
@@ -49,22 +132,39 @@ public class MovieService {
             }
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        Page<Movie> moviePage = movieRepository.findAll(spec, pageable);
-        List<MovieDto> dtos = DtoMapper.toMovieDtoList(moviePage.getContent());
-        return new PageImpl<>(dtos, pageable, moviePage.getTotalElements());
+    /**
+     * Поиск по названию без учёта регистра через кэш естественных идентификаторов.
+     */
+    @Transactional(readOnly = true)
+    public MovieJson findMovieByName(String name) {
+        Movie movie = movieRepository.findByNameKey(name)
+                .orElseThrow(() -> new MovieNotFoundException("Movie with name '" + name + "' not found"));
+        movieAccessTracker.recordAccess(movie.getId());
+        return movieJsonCache.get(movie);
     }
 
-    public MovieDto findMovieById(Integer id) {
+    /**
+     * Фильм обычно берётся из L2-кэша, а его представление - из {@link MovieJsonCache};
+     * если версия известна клиенту, представление не нужно вовсе.
+     * @param clientHasVersion проверяет версию по условию запроса клиента.
+     */
+    public VersionedMovie findMovieIfModified(Integer id, IntPredicate clientHasVersion) {
         Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new MovieNotFoundException("Movie with id " + id + " not found"));
-        return DtoMapper.toMovieDto(movie);
+        // Учитываются только чтения по id и названию: только они обслуживаются из L2-кэша
+        movieAccessTracker.recordAccess(id);
+        int version = MovieJsonCache.versionOf(movie);
+        return new VersionedMovie(version, clientHasVersion.test(version) ? null : movieJsonCache.get(movie));
     }
 
     @Transactional
     public MovieDto createMovie(MovieDto movieDto) {
         Movie movie = DtoMapper.toMovieEntity(movieDto);
+        personInterningService.internPersons(movie);
         Movie savedMovie = movieRepository.save(movie);
+        movieAggregateService.movieAdded(savedMovie);
         MovieDto resultDto = DtoMapper.toMovieDto(savedMovie);
         eventPublisher.publishEvent(new SseEvent("movie-created", resultDto));
         return resultDto;
@@ -74,6 +174,18 @@ public class MovieService {
     public MovieDto updateMovie(Integer id, MovieDto movieDto) {
         Movie existingMovie = movieRepository.findById(id)
                 .orElseThrow(() -> new MovieNotFoundException("Movie with id " + id + " not found"));
+        if (coordinatesChanged(existingMovie.getCoordinates(), movieDto.getCoordinates())) {
+            // Координаты - отдельная сущность, и их изменение само не увеличивает версию фильма,
+            // а по версии строятся ETag и ключ MovieJsonCache
+            entityManager.lock(existingMovie, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+        }
+
+        // Люди общие для многих фильмов, поэтому не правим их на месте, а переназначаем.
+        // Поиск выполняется до изменения фильма, чтобы автофлаш не сохранил новых людей раньше времени
+        MovieDto previous = DtoMapper.toMovieDto(existingMovie);
+        Movie candidate = DtoMapper.toMovieEntity(movieDto);
+        personInterningService.internPersons(candidate);
+        movieAggregateService.movieChanged(existingMovie.getGoldenPalmCount(), movieDto.getGoldenPalmCount());
 
         existingMovie.setName(movieDto.getName());
         existingMovie.setOscarsCount(movieDto.getOscarsCount());
@@ -87,33 +199,72 @@ public class MovieService {
         existingMovie.setGenre(movieDto.getGenre());
 
         updateCoordinatesFromDto(existingMovie.getCoordinates(), movieDto.getCoordinates());
-        updatePersonFromDto(existingMovie.getDirector(), movieDto.getDirector());
-        updatePersonFromDto(existingMovie.getOperator(), movieDto.getOperator());
+        existingMovie.setDirector(candidate.getDirector());
+        existingMovie.setScreenwriter(candidate.getScreenwriter());
+        existingMovie.setOperator(candidate.getOperator());
 
-        if (movieDto.getScreenwriter() != null) {
-            if (existingMovie.getScreenwriter() == null) {
-                existingMovie.setScreenwriter(new Person());
+        // Сброс сразу, чтобы в ответе была уже увеличенная версия
+        Movie updatedMovie = movieRepository.saveAndFlush(existingMovie);
+        MovieDto resultDto = DtoMapper.toMovieDto(updatedMovie);
+        eventPublisher.publishEvent(new SseEvent("movie-updated", resultDto, previous));
+        return resultDto;
+    }
+
+    /**
+     * Изменяет фильм, если его версия равна {@code expectedVersion}. Фильм не загружается:
+     * проверка версии и запись выполняются одним UPDATE.
+     * @throws MovieVersionMismatchException если фильм изменён с тех пор, как клиент получил эту версию.
+     */
+    @Transactional
+    public MovieDto updateMovieIfVersion(Integer id, int expectedVersion, MovieDto movieDto) {
+        Movie candidate = DtoMapper.toMovieEntity(movieDto);
+        personInterningService.internPersons(candidate);
+        // Новые люди должны оказаться в базе до UPDATE, который на них ссылается
+        persistNewPerson(candidate.getDirector());
+        persistNewPerson(candidate.getScreenwriter());
+        persistNewPerson(candidate.getOperator());
+        personRepository.flush();
+
+        MovieBulkOperations.VersionedUpdate update = movieRepository.updateIfVersion(id, expectedVersion, candidate)
+                .orElse(null);
+        if (update == null) {
+            if (!movieRepository.existsById(id)) {
+                throw new MovieNotFoundException("Movie with id " + id + " not found");
             }
-            updatePersonFromDto(existingMovie.getScreenwriter(), movieDto.getScreenwriter());
-        } else {
-            existingMovie.setScreenwriter(null);
+            throw new MovieVersionMismatchException("Movie with id " + id + " is no longer at version " + expectedVersion);
         }
+        movieAggregateService.movieChanged(update.previousGoldenPalmCount(), candidate.getGoldenPalmCount());
 
-        Movie updatedMovie = movieRepository.save(existingMovie);
-        MovieDto resultDto = DtoMapper.toMovieDto(updatedMovie);
-        eventPublisher.publishEvent(new SseEvent("movie-updated", resultDto));
+        candidate.setId(id);
+        candidate.setVersion(update.version());
+        MovieDto resultDto = DtoMapper.toMovieDto(candidate);
+        eventPublisher.publishEvent(new SseEvent("movie-updated", resultDto, previousFilterFields(update)));
         return resultDto;
     }
 
-    private void updatePersonFromDto(Person person, PersonDto dto) {
-        if (person == null || dto == null) return;
-        person.setName(dto.getName());
-        person.setEyeColor(dto.getEyeColor());
-        person.setHairColor(dto.getHairColor());
-        person.setBirthday(dto.getBirthday());
-        person.setWeight(dto.getWeight());
+    private void persistNewPerson(Person person) {
+        if (person != null && person.getId() == null) {
+            personRepository.save(person);
+        }
+    }
+
+    /**
+     * Прежние значения полей, по которым фильтруется список, - для точного сброса кэша страниц.
+     */
+    private static MovieDto previousFilterFields(MovieBulkOperations.VersionedUpdate update) {
+        MovieDto previous = new MovieDto();
+        previous.setName(update.previousName());
+        previous.setGenre(update.previousGenre());
+        PersonDto director = new PersonDto();
+        director.setName(update.previousDirectorName());
+        previous.setDirector(director);
+        return previous;
     }
 
+    private static boolean coordinatesChanged(Coordinates entity, CoordinatesDto dto) {
+        return entity != null && dto != null
+                && (!Objects.equals(entity.getX(), dto.getX()) || entity.getY() != dto.getY());
+    }
 
     private void updateCoordinatesFromDto(Coordinates entity, CoordinatesDto dto) {
         if (entity == null || dto == null) return;
@@ -123,74 +274,64 @@ public class MovieService {
 
     @Transactional
     public void deleteMovie(Integer id) {
-        if (!movieRepository.existsById(id)) {
-            throw new MovieNotFoundException("Movie with id " + id + " not found");
-        }
-        movieRepository.deleteById(id);
-        eventPublisher.publishEvent(new SseEvent("movie-deleted", id));
+        Movie movie = movieRepository.findById(id)
+                .orElseThrow(() -> new MovieNotFoundException("Movie with id " + id + " not found"));
+        movieRepository.delete(movie);
+        movieAggregateService.moviesRemoved(List.of(movie));
+        eventPublisher.publishEvent(new SseEvent("movie-deleted", id, DtoMapper.toMovieDto(movie)));
     }
 
     @Transactional
     public void deleteMoviesByGenre(MovieGenre genre) {
-        movieRepository.deleteAllByGenre(genre);
-        eventPublisher.publishEvent(new SseEvent("movies-deleted-by-genre", genre.name()));
+        MovieBulkOperations.DeletedMovies deleted = movieRepository.deleteByGenreInBulk(genre);
+        movieAggregateService.moviesRemoved(deleted.count(), deleted.goldenPalmSum());
+        eventPublisher.publishEvent(new SseEvent("movies-deleted-by-genre",
+                Map.of("genre", genre.name(), "deleted", deleted.count())));
+    }
+
+    public Long rebuildAggregates() {
+        movieAggregateService.rebuild();
+        return movieAggregateService.getGoldenPalmSum();
     }
 
     public Long getGoldenPalmSum() {
-        return movieRepository.findAll().stream()
-                .mapToLong(Movie::getGoldenPalmCount)
-                .sum();
+        return movieAggregateService.getGoldenPalmSum();
     }
 
     public List<MovieDto> findByTagline(String substring) {
-        List<Movie> movies = movieRepository.findByTaglineContainingIgnoreCase(substring);
-        return DtoMapper.toMovieDtoList(movies);
+        return findByTagline(substring, Pageable.unpaged(Sort.by("id"))).getContent();
     }
 
-    public List<PersonDto> findScreenwritersWithoutOscars() {
-        List<Integer> idsWithOscars = personRepository.findScreenwriterIdsWithOscars();
-        List<Person> allPersons = personRepository.findAll();
+    /**
+     * Поиск подстроки без учёта регистра. Страница возвращается как {@link Slice}:
+     * подсчёт всех совпадений для частой подстроки стоил бы больше самого поиска.
+     */
+    public Slice<MovieDto> findByTagline(String substring, Pageable pageable) {
+        String pattern = "%" + escapeLike(substring.toLowerCase()) + "%";
+        return movieRepository.findByTaglineLike(pattern, pageable).map(DtoMapper::toMovieDto);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
-        List<Person> result = allPersons.stream()
-                .filter(person -> !idsWithOscars.contains(person.getId()))
-                .collect(Collectors.toList());
+    public List<PersonDto> findScreenwritersWithoutOscars() {
+        return findScreenwritersWithoutOscars(Pageable.unpaged(Sort.by("id"))).getContent();
+    }
 
-        return DtoMapper.toPersonDtoList(result);
+    public Page<PersonDto> findScreenwritersWithoutOscars(Pageable pageable) {
+        return personRepository.findScreenwritersWithoutOscars(pageable).map(DtoMapper::toPersonDto);
     }
 
     @Transactional
     public void redistributeOscars(MovieGenre fromGenre, MovieGenre toGenre) {
-        List<Movie> fromMovies = movieRepository.findByGenre(fromGenre);
-        List<Movie> toMovies = movieRepository.findByGenre(toGenre);
-
-        if (toMovies.isEmpty()) {
-            return;
-        }
-
-        int totalOscars = fromMovies.stream()
-                .filter(m -> m.getOscarsCount() != null)
-                .mapToInt(Movie::getOscarsCount)
-                .sum();
-
-        if (totalOscars == 0) {
+        MovieBulkOperations.RedistributedOscars redistributed = movieRepository.redistributeOscars(fromGenre, toGenre);
+        if (redistributed.total() == 0) {
             return;
         }
 
-        fromMovies.forEach(m -> m.setOscarsCount(null));
-        movieRepository.saveAll(fromMovies);
-
-        int oscarsPerMovie = totalOscars / toMovies.size();
-        int remainder = totalOscars % toMovies.size();
-
-        for (int i = 0; i < toMovies.size(); i++) {
-            Movie movie = toMovies.get(i);
-            int currentOscars = movie.getOscarsCount() == null ? 0 : movie.getOscarsCount();
-            int oscarsToAdd = oscarsPerMovie + (i < remainder ? 1 : 0);
-            movie.setOscarsCount(currentOscars + oscarsToAdd);
-        }
-        movieRepository.saveAll(toMovies);
-
+        // Изменённые фильмы передаются слушателям внутри приложения, клиентам уходит только сообщение
         String eventData = "Oscars redistributed from " + fromGenre + " to " + toGenre;
-        eventPublisher.publishEvent(new SseEvent("oscars-redistributed", eventData));
+        eventPublisher.publishEvent(new SseEvent("oscars-redistributed", eventData, redistributed));
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package org.lab1.service;
+
+import lombok.RequiredArgsConstructor;
+import org.lab1.model.Location;
+import org.lab1.model.Movie;
+import org.lab1.model.NaturalKeys;
+import org.lab1.model.Person;
+import org.lab1.repository.LocationRepository;
+import org.lab1.repository.PersonRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Подменяет людей и локации фильма уже существующими строками с тем же естественным ключом,
+ * чтобы при создании и изменении фильмов не плодить одинаковые записи.
+ */
+@Service
+@RequiredArgsConstructor
+public class PersonInterningService {
+
+    private final PersonRepository personRepository;
+    private final LocationRepository locationRepository;
+
+    /**
+     * Должен вызываться внутри транзакции, которая затем сохраняет фильм.
+     */
+    public void internPersons(Movie movie) {
+        // Один и тот же новый человек может встретиться в фильме несколько раз (режиссёр и оператор)
+        Map<String, Person> seenPersons = new HashMap<>();
+        Map<String, Location> seenLocations = new HashMap<>();
+        movie.setDirector(intern(movie.getDirector(), seenPersons, seenLocations));
+        movie.setScreenwriter(intern(movie.getScreenwriter(), seenPersons, seenLocations));
+        movie.setOperator(intern(movie.getOperator(), seenPersons, seenLocations));
+    }
+
+    private Person intern(Person candidate, Map<String, Person> seenPersons, Map<String, Location> seenLocations) {
+        if (candidate == null) return null;
+        String key = NaturalKeys.of(candidate);
+        Person known = seenPersons.get(key);
+        if (known != null) return known;
+
+        Person resolved = personRepository.findByNaturalKey(key).orElseGet(() -> {
+            candidate.setId(null);
+            candidate.setLocation(intern(candidate.getLocation(), seenLocations));
+            return candidate;
+        });
+        seenPersons.put(key, resolved);
+        return resolved;
+    }
+
+    private Location intern(Location candidate, Map<String, Location> seenLocations) {
+        if (candidate == null) return null;
+        String key = NaturalKeys.of(candidate);
+        return seenLocations.computeIfAbsent(key, k -> locationRepository.findByNaturalKey(k).orElseGet(() -> {
+            candidate.setId(null);
+            return candidate;
+        }));
+    }
+}
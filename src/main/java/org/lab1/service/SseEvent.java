@@ -5,10 +5,17 @@ public class SseEvent {
 
     private final String name;
     private final Object data;
+    // Состояние до изменения; используется слушателями внутри приложения и клиентам не отправляется
+    private final Object previous;
 
     public SseEvent(String name, Object data) {
+        this(name, data, null);
+    }
+
+    public SseEvent(String name, Object data, Object previous) {
         this.name = name;
         this.data = data;
+        this.previous = previous;
     }
 
     public String getName() {
@@ -18,4 +25,8 @@ public class SseEvent {
     public Object getData() {
         return data;
     }
+
+    public Object getPrevious() {
+        return previous;
+    }
 }
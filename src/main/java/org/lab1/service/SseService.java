@@ -67,10 +67,11 @@ public class SseService {
 
     /**
      * Слушает внутреннее событие приложения, которое публикуется после успешного
-     * завершения транзакции в базе данных.
+     * завершения транзакции в базе данных. События, опубликованные вне транзакции
+     * (например, по завершении фонового импорта), отправляются сразу.
      * @param event Событие, содержащее имя и данные для отправки клиенту.
      */
-    @TransactionalEventListener
+    @TransactionalEventListener(fallbackExecution = true)
     public void handleSseEvent(SseEvent event) {
         log.info("[SSE] Transaction committed. Preparing to send event '{}' to {} clients.", event.getName(), emitters.size());
         sendEventToAll(event.getName(), event.getData());
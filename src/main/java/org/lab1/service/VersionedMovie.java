@@ -0,0 +1,7 @@
+package org.lab1.service;
+
+/**
+ * Версия фильма и его представление; {@code movie} равен {@code null}, если у клиента уже актуальная версия.
+ */
+public record VersionedMovie(int version, MovieJson movie) {
+}
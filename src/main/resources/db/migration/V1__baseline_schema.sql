@@ -0,0 +1,87 @@
+-- Схема, которую раньше создавал Hibernate (ddl-auto=create).
+-- Шаг последовательностей 50 совпадает с allocationSize по умолчанию и с MovieBulkLoader.
+-- Скрипт повторяемый: на базе, созданной ddl-auto более ранней версией приложения
+-- (она принимается как версия 0), он только добавляет недостающие таблицы и столбцы.
+
+CREATE SEQUENCE IF NOT EXISTS location_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS person_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS coordinates_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS movie_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS import_history_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS location (
+    id          integer      NOT NULL PRIMARY KEY,
+    x           real         NOT NULL,
+    y           bigint       NOT NULL,
+    z           float(53)    NOT NULL,
+    name        varchar(475) NOT NULL
+);
+ALTER TABLE location ADD COLUMN IF NOT EXISTS natural_key varchar(64) UNIQUE;
+
+CREATE TABLE IF NOT EXISTS person (
+    id          integer      NOT NULL PRIMARY KEY,
+    name        varchar(255) NOT NULL,
+    eye_color   varchar(255) NOT NULL,
+    hair_color  varchar(255),
+    birthday    timestamp(6) with time zone,
+    weight      real,
+    location_id integer REFERENCES location (id)
+);
+ALTER TABLE person ADD COLUMN IF NOT EXISTS natural_key varchar(64) UNIQUE;
+
+CREATE TABLE IF NOT EXISTS coordinates (
+    id integer NOT NULL PRIMARY KEY,
+    x  real    NOT NULL,
+    y  integer NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS movie (
+    id                integer      NOT NULL PRIMARY KEY,
+    name              varchar(255) NOT NULL UNIQUE,
+    version           integer,
+    coordinates_id    integer      NOT NULL UNIQUE REFERENCES coordinates (id) ON DELETE CASCADE,
+    creation_date     date         NOT NULL,
+    oscars_count      integer,
+    budget            real         NOT NULL,
+    total_box_office  bigint       NOT NULL,
+    mpaa_rating       varchar(255) NOT NULL,
+    director_id       integer      NOT NULL REFERENCES person (id),
+    screenwriter_id   integer      REFERENCES person (id),
+    operator_id       integer      NOT NULL REFERENCES person (id),
+    length            integer,
+    golden_palm_count integer      NOT NULL,
+    usa_box_office    bigint,
+    tagline           varchar(168) NOT NULL,
+    genre             varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS movie_aggregate (
+    id              integer NOT NULL PRIMARY KEY,
+    golden_palm_sum bigint  NOT NULL,
+    movie_count     bigint  NOT NULL
+);
+
+-- В старой базе фильмы уже есть, поэтому строка агрегата считается по ним
+INSERT INTO movie_aggregate (id, golden_palm_sum, movie_count)
+SELECT 1, COALESCE(SUM(golden_palm_count), 0), COUNT(*) FROM movie
+ON CONFLICT (id) DO NOTHING;
+
+CREATE TABLE IF NOT EXISTS import_history (
+    id                  bigint        NOT NULL PRIMARY KEY,
+    import_date         timestamp(6)  NOT NULL,
+    status              varchar(255)  NOT NULL,
+    imported_count      integer,
+    details             varchar(1024),
+    object_name         varchar(255)
+);
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS duration_ms bigint;
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS rows_per_second float(53);
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS content_hash varchar(64);
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS format varchar(16);
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS commit_mode varchar(16);
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS invalid_row_policy varchar(16);
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS checkpoint_index integer;
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS skipped_count integer;
+ALTER TABLE import_history ADD COLUMN IF NOT EXISTS error_report_object varchar(255);
+
+CREATE INDEX IF NOT EXISTS idx_import_history_content_hash ON import_history (content_hash);
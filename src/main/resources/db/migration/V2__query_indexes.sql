@@ -0,0 +1,24 @@
+-- Индексы под фильтры и операции MovieService.
+
+-- findAllMovies: фильтры без учёта регистра сравнивают lower(...)
+CREATE INDEX idx_movie_name_lower ON movie (lower(name));
+CREATE INDEX idx_person_name_lower ON person (lower(name));
+
+-- findAllMovies, deleteAllByGenre, findByGenre
+CREATE INDEX idx_movie_genre ON movie (genre);
+
+-- Внешние ключи: соединения с person и проверки при удалении людей
+CREATE INDEX idx_movie_director_id ON movie (director_id);
+CREATE INDEX idx_movie_screenwriter_id ON movie (screenwriter_id);
+CREATE INDEX idx_movie_operator_id ON movie (operator_id);
+CREATE INDEX idx_person_location_id ON person (location_id);
+
+CREATE INDEX idx_movie_oscars_count ON movie (oscars_count);
+
+-- Антисоединение в findScreenwritersWithoutOscars ищет только фильмы с «Оскарами»
+CREATE INDEX idx_movie_screenwriter_with_oscars ON movie (screenwriter_id) WHERE oscars_count > 0;
+
+-- Поиск подстроки в слогане: lower(tagline) LIKE '%...%'
+-- Индекс мог остаться от import.sql в базе, созданной ddl-auto
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_movie_tagline_trgm ON movie USING gin (lower(tagline) gin_trgm_ops);
@@ -0,0 +1,17 @@
+-- Название без учёта регистра - естественный ключ фильма (Movie.nameKey) для поиска по названию
+-- через кэш естественных идентификаторов и для фильтра name в findAllMovies.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM movie GROUP BY lower(name) HAVING COUNT(*) > 1) THEN
+        RAISE EXCEPTION 'Movies with names differing only in case exist, rename them before migrating';
+    END IF;
+END $$;
+
+ALTER TABLE movie ADD COLUMN name_key varchar(255);
+UPDATE movie SET name_key = lower(name);
+ALTER TABLE movie ALTER COLUMN name_key SET NOT NULL;
+ALTER TABLE movie ADD CONSTRAINT uk_movie_name_key UNIQUE (name_key);
+
+-- Фильтр по названию теперь сравнивает name_key
+DROP INDEX idx_movie_name_lower;
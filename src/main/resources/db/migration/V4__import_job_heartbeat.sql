@@ -0,0 +1,2 @@
+-- Отметка жизни задачи импорта: задачи без свежей отметки после сбоя процесса помечаются как FAILURE
+ALTER TABLE import_history ADD COLUMN heartbeat_at timestamp(6);
@@ -0,0 +1,18 @@
+-- Один и тот же файл может загружаться (или быть загружен) только одним импортом.
+-- Проверка перед вставкой в ImportJobService не защищает от одновременных загрузок,
+-- поэтому дубликаты отсекает частичный уникальный индекс.
+
+-- У повторов, появившихся до индекса, хэш сбрасывается: остаётся самый ранний импорт
+UPDATE import_history h
+SET content_hash = NULL
+WHERE h.status IN ('QUEUED', 'RUNNING', 'SUCCESS')
+  AND h.content_hash IS NOT NULL
+  AND EXISTS (SELECT 1
+              FROM import_history o
+              WHERE o.content_hash = h.content_hash
+                AND o.status IN ('QUEUED', 'RUNNING', 'SUCCESS')
+                AND o.id < h.id);
+
+CREATE UNIQUE INDEX uk_import_history_active_content
+    ON import_history (content_hash)
+    WHERE status IN ('QUEUED', 'RUNNING', 'SUCCESS');
@@ -0,0 +1,169 @@
+package org.lab1;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.parsing.ParserRegistry;
+import org.infinispan.manager.DefaultCacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Два узла на infinispan-clustered.xml в разных JVM на localhost: второй узел запускается
+ * отдельным процессом ({@link RemoteNode}) и находит первый через TCPPING, как второй экземпляр приложения.
+ * Запись на одном узле должна удалять устаревшую запись региона на другом.
+ */
+class InfinispanClusteredInvalidationTest {
+
+    // Регион создаётся из шаблона так же, как его создаёт Hibernate по свойству ...Movie.cfg=movie
+    private static final String REGION = "org.lab1.model.Movie";
+
+    // Ответы узла-процесса отличаются от строк его журнала, который тоже пишется в stdout
+    private static final String REPLY = ">> ";
+
+    private DefaultCacheManager localNode;
+    private Process remoteNode;
+    private PrintWriter commands;
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void startNodes() throws Exception {
+        localNode = startNode();
+        startRemoteNode();
+    }
+
+    @AfterEach
+    void stopNodes() throws InterruptedException {
+        if (remoteNode != null) {
+            commands.println("quit");
+            if (!remoteNode.waitFor(30, TimeUnit.SECONDS)) {
+                remoteNode.destroyForcibly();
+            }
+        }
+        if (localNode != null) {
+            localNode.stop();
+        }
+    }
+
+    @Test
+    void putOnOneNodeInvalidatesTheOther() throws Exception {
+        Cache<Integer, String> cache = localNode.getCache(REGION);
+        assertEquals(2, localNode.getMembers().size());
+
+        // Так Hibernate кладёт в кэш прочитанные из базы сущности: без рассылки по кластеру
+        cache.putForExternalRead(1, "version 0");
+        send("read 1 version-0");
+        assertEquals("version-0", send("get 1"));
+
+        cache.put(1, "version 1");
+
+        assertEquals("version 1", cache.get(1));
+        assertEquals("null", send("get 1"));
+    }
+
+    @Test
+    void removeOnOtherNodeInvalidatesLocalEntry() throws Exception {
+        Cache<Integer, String> cache = localNode.getCache(REGION);
+
+        cache.putForExternalRead(2, "version 0");
+        send("read 2 version-0");
+
+        send("remove 2");
+
+        assertNull(cache.get(2));
+        assertEquals("null", send("get 2"));
+    }
+
+    private void startRemoteNode() throws Exception {
+        // Под surefire java.class.path - jar с манифестом, в котором перечислен весь тестовый classpath
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        remoteNode = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Djava.net.preferIPv4Stack=true", RemoteNode.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        commands = new PrintWriter(remoteNode.getOutputStream(), true, StandardCharsets.UTF_8);
+        Thread reader = new Thread(() -> {
+            try (BufferedReader out = new BufferedReader(
+                    new InputStreamReader(remoteNode.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    if (line.startsWith(REPLY)) {
+                        replies.add(line.substring(REPLY.length()));
+                    }
+                }
+            } catch (IOException ignored) {
+                // Процесс завершён
+            }
+        }, "remote-node-output");
+        reader.setDaemon(true);
+        reader.start();
+
+        assertEquals("ready", reply());
+        assertEquals(2, localNode.getMembers().size());
+    }
+
+    private String send(String command) throws InterruptedException {
+        commands.println(command);
+        return reply();
+    }
+
+    private String reply() throws InterruptedException {
+        String reply = replies.poll(60, TimeUnit.SECONDS);
+        assertNotNull(reply, "Remote cache node did not answer");
+        return reply;
+    }
+
+    private static DefaultCacheManager startNode() throws IOException {
+        DefaultCacheManager node = new DefaultCacheManager(
+                new ParserRegistry().parseFile("infinispan-clustered.xml"), true);
+        node.defineConfiguration(REGION, new ConfigurationBuilder()
+                .read(node.getCacheConfiguration("movie"))
+                .template(false)
+                .build());
+        return node;
+    }
+
+    /**
+     * Второй узел кластера в отдельной JVM. Выполняет команды из stdin по одной в строке
+     * и отвечает строками с префиксом {@link #REPLY}.
+     */
+    public static final class RemoteNode {
+
+        public static void main(String[] args) throws IOException {
+            DefaultCacheManager node = startNode();
+            Cache<Integer, String> cache = node.getCache(REGION);
+            System.out.println(REPLY + "ready");
+            BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null && !line.equals("quit")) {
+                String[] command = line.split(" ");
+                Integer key = Integer.valueOf(command[1]);
+                switch (command[0]) {
+                    case "read" -> cache.putForExternalRead(key, command[2]);
+                    case "remove" -> cache.remove(key);
+                    case "get" -> {
+                        System.out.println(REPLY + cache.get(key));
+                        continue;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown command: " + line);
+                }
+                System.out.println(REPLY + "ok");
+            }
+            node.stop();
+        }
+    }
+}
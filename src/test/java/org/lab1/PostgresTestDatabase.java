@@ -0,0 +1,49 @@
+package org.lab1;
+
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * PostgreSQL для тестов, которым нужна настоящая база (COPY, CTE, последовательности).
+ * Если задано свойство {@code test.database.url}, используется указанная пустая база, например
+ * {@code mvn test -Dtest.database.url=jdbc:postgresql://localhost:5432/lab1_test -Dtest.database.username=postgres}.
+ * Иначе запускается контейнер, один на все тесты. Без Docker и без свойства тесты пропускаются.
+ */
+public final class PostgresTestDatabase {
+
+    private static final String URL_PROPERTY = "test.database.url";
+
+    private static PostgreSQLContainer<?> container;
+
+    private PostgresTestDatabase() {
+    }
+
+    /**
+     * Условие для {@code @EnabledIf("org.lab1.PostgresTestDatabase#available")}.
+     */
+    public static boolean available() {
+        return System.getProperty(URL_PROPERTY) != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    /**
+     * Подставляет параметры подключения; вызывается из {@code @DynamicPropertySource} тестового класса.
+     */
+    public static synchronized void register(DynamicPropertyRegistry registry) {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url != null) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.username", () -> System.getProperty("test.database.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("test.database.password", ""));
+            return;
+        }
+        if (container == null) {
+            // Останавливается вместе с JVM средствами Testcontainers
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        registry.add("spring.datasource.url", container::getJdbcUrl);
+        registry.add("spring.datasource.username", container::getUsername);
+        registry.add("spring.datasource.password", container::getPassword);
+    }
+}
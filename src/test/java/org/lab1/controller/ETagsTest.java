@@ -0,0 +1,40 @@
+package org.lab1.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagsTest {
+
+    @Test
+    void tagIsQuotedVersion() {
+        assertEquals("\"3\"", ETags.of(3));
+    }
+
+    @Test
+    void ifNoneMatchAcceptsListsWeakTagsAndWildcard() {
+        assertTrue(ETags.matches("\"3\"", 3));
+        assertTrue(ETags.matches("W/\"3\"", 3));
+        assertTrue(ETags.matches("\"1\", \"2\" ,\"3\"", 3));
+        assertTrue(ETags.matches("*", 3));
+
+        assertFalse(ETags.matches(null, 3));
+        assertFalse(ETags.matches("\"4\"", 3));
+        assertFalse(ETags.matches("3", 3));
+    }
+
+    @Test
+    void ifMatchAcceptsOnlyOneStrongVersionTag() {
+        assertEquals(7, ETags.parseVersion("\"7\""));
+        assertEquals(7, ETags.parseVersion("  \"7\" "));
+
+        assertNull(ETags.parseVersion("W/\"7\""));
+        assertNull(ETags.parseVersion("7"));
+        assertNull(ETags.parseVersion("\"\""));
+        assertNull(ETags.parseVersion("\"seven\""));
+        assertNull(ETags.parseVersion("\"1\", \"2\""));
+    }
+}
@@ -0,0 +1,130 @@
+package org.lab1.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.lab1.dto.MovieDto;
+import org.lab1.enums.Color;
+import org.lab1.enums.MovieGenre;
+import org.lab1.exception.UnsupportedImportFormatException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportFormatTest {
+
+    private static final String CSV = """
+            name,coordinates.x,coordinates.y,director.name,director.eyeColor,director.location.name,oscarsCount,genre
+            Alien,1.5,2,Scott,GREEN,London,,DRAMA
+            Broken,1,1,Nobody,PURPLE,,,
+            Heat,3,4,Mann,BROWN,,2,
+            """;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void requestedFormatWinsOverFileName() {
+        assertEquals(ImportFormat.CSV, ImportFormat.detect("csv", "movies.json", "application/json"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.detect(" NdJson ", null, null));
+    }
+
+    @Test
+    void unknownRequestedFormatIsRejected() {
+        UnsupportedImportFormatException e = assertThrows(UnsupportedImportFormatException.class,
+                () -> ImportFormat.detect("xml", "movies.xml", null));
+        assertTrue(e.getMessage().contains("xml"));
+    }
+
+    @Test
+    void formatIsDetectedByExtensionIgnoringCompression() {
+        assertEquals(ImportFormat.CSV, ImportFormat.detect(null, "movies.csv.gz", null));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.detect("", "MOVIES.NDJSON.ZST", null));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.detect(null, "movies.jsonl", "text/csv"));
+        assertEquals(ImportFormat.JSON, ImportFormat.detect(null, "movies.json.gz", "application/gzip"));
+    }
+
+    @Test
+    void formatFallsBackToContentTypeThenJson() {
+        assertEquals(ImportFormat.CSV, ImportFormat.detect(null, "upload", "text/csv"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.detect(null, "upload", "application/x-ndjson"));
+        assertEquals(ImportFormat.JSON, ImportFormat.detect(null, null, null));
+    }
+
+    @Test
+    void csvReaderBuildsNestedFieldsAndKeepsUnbindableRows() throws IOException {
+        try (MovieRecordReader reader = ImportFormat.CSV.open(stream(CSV.getBytes(StandardCharsets.UTF_8)), mapper)) {
+            RecordChunk chunk = reader.readChunk(2);
+
+            assertEquals(2, chunk.size());
+            MovieDto alien = chunk.items().get(0);
+            assertEquals("Alien", alien.getName());
+            assertEquals(1.5f, alien.getCoordinates().getX());
+            assertEquals("Scott", alien.getDirector().getName());
+            assertEquals(Color.GREEN, alien.getDirector().getEyeColor());
+            assertEquals("London", alien.getDirector().getLocation().getName());
+            assertEquals(MovieGenre.DRAMA, alien.getGenre());
+            // Пустая ячейка - отсутствующее значение
+            assertNull(alien.getOscarsCount());
+            assertNull(chunk.bindErrors()[0]);
+
+            // Строка с неизвестным цветом не прерывает чтение
+            assertNull(chunk.items().get(1));
+            assertTrue(chunk.bindErrors()[1].contains("PURPLE"));
+
+            assertTrue(reader.hasNext());
+            assertEquals(1, reader.skip(5));
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void csvHeaderMixingScalarAndNestedColumnIsRejected() {
+        String csv = """
+                name,coordinates,coordinates.x
+                Alien,,1.5
+                """;
+        String reversed = """
+                name,director.name,director
+                Alien,Scott,
+                """;
+
+        IOException e = assertThrows(IOException.class, () -> readFirstChunk(csv));
+        assertTrue(e.getMessage().contains("'coordinates.x'"));
+        assertThrows(IOException.class, () -> readFirstChunk(reversed));
+    }
+
+    @Test
+    void compressedContentIsDetectedBySignature() throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(CSV.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (MovieRecordReader reader = ImportFormat.CSV.open(stream(gzipped.toByteArray()), mapper)) {
+            RecordChunk chunk = reader.readChunk(10);
+
+            assertEquals(3, chunk.size());
+            assertEquals("Heat", chunk.items().get(2).getName());
+            assertEquals(2, chunk.items().get(2).getOscarsCount());
+        }
+    }
+
+    private void readFirstChunk(String csv) throws IOException {
+        try (MovieRecordReader reader = ImportFormat.CSV.open(stream(csv.getBytes(StandardCharsets.UTF_8)), mapper)) {
+            reader.readChunk(10);
+        }
+    }
+
+    private static ByteArrayInputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+}
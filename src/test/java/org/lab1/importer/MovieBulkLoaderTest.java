@@ -0,0 +1,137 @@
+package org.lab1.importer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.lab1.PostgresTestDatabase;
+import org.lab1.enums.Color;
+import org.lab1.enums.MovieGenre;
+import org.lab1.enums.MpaaRating;
+import org.lab1.model.Coordinates;
+import org.lab1.model.Movie;
+import org.lab1.model.NaturalKeys;
+import org.lab1.model.Person;
+import org.lab1.service.MovieAggregateService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("org.lab1.PostgresTestDatabase#available")
+@Import({MovieBulkLoader.class, MovieAggregateService.class})
+class MovieBulkLoaderTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private MovieBulkLoader movieBulkLoader;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkIdsDoNotCollideWithIdsAllocatedByHibernate() {
+        // Hibernate держит в памяти диапазон id, полученный первым nextval
+        entityManager.persistAndFlush(movie("Persisted before"));
+
+        movieBulkLoader.load(List.of(movie("Bulk 1"), movie("Bulk 2")));
+
+        // Следующие id Hibernate берёт из того же диапазона; пересечение дало бы нарушение первичного ключа
+        entityManager.persist(movie("Persisted after 1"));
+        entityManager.persist(movie("Persisted after 2"));
+        entityManager.flush();
+
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM movie", Integer.class));
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM coordinates", Integer.class));
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM person", Integer.class));
+    }
+
+    @Test
+    void sameKeyInstancesInOneChunkResolveToExistingId() {
+        Person existing = entityManager.persistAndFlush(person("Shared director"));
+
+        // Разные объекты с одним естественным ключом: все должны получить id существующей строки
+        Movie first = movie("Conflict 1");
+        first.setDirector(person("Shared director"));
+        first.setOperator(person("Shared director"));
+        Movie second = movie("Conflict 2");
+        second.setDirector(person("Shared director"));
+        movieBulkLoader.load(List.of(first, second));
+
+        assertEquals(existing.getId(), first.getDirector().getId());
+        assertEquals(existing.getId(), first.getOperator().getId());
+        assertEquals(existing.getId(), second.getDirector().getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM person WHERE natural_key = ?",
+                Integer.class, NaturalKeys.of(existing)));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movie WHERE director_id = ?", Integer.class, existing.getId()));
+    }
+
+    @Test
+    void copyKeepsEmptyStringsApartFromNulls() {
+        Movie movie = movie("Quoted, \"name\"");
+        movie.setTagline("");
+        movie.setGenre(null);
+        movie.setOscarsCount(null);
+        movie.getDirector().setName("O'Neil, \"Jr\"");
+        movieBulkLoader.load(List.of(movie));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT m.name, m.tagline, m.genre, m.oscars_count, m.usa_box_office, m.screenwriter_id, " +
+                "p.name AS director, p.hair_color, p.location_id " +
+                "FROM movie m JOIN person p ON p.id = m.director_id WHERE m.id = ?", movie.getId());
+        assertEquals("Quoted, \"name\"", row.get("name"));
+        assertEquals("", row.get("tagline"));
+        assertNull(row.get("genre"));
+        assertNull(row.get("oscars_count"));
+        assertNull(row.get("usa_box_office"));
+        assertNull(row.get("screenwriter_id"));
+        assertEquals("O'Neil, \"Jr\"", row.get("director"));
+        assertNull(row.get("hair_color"));
+        assertNull(row.get("location_id"));
+    }
+
+    private static Movie movie(String name) {
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(1.5f);
+        coordinates.setY(2);
+
+        Movie movie = new Movie();
+        movie.setName(name);
+        movie.setCoordinates(coordinates);
+        movie.setOscarsCount(1);
+        movie.setBudget(1000f);
+        movie.setTotalBoxOffice(5000L);
+        movie.setMpaaRating(MpaaRating.PG_13);
+        movie.setDirector(person("Director of " + name));
+        movie.setOperator(person("Operator of " + name));
+        movie.setGoldenPalmCount(1);
+        movie.setTagline("Tagline of " + name);
+        movie.setGenre(MovieGenre.DRAMA);
+        return movie;
+    }
+
+    private static Person person(String name) {
+        Person person = new Person();
+        person.setName(name);
+        person.setEyeColor(Color.GREEN);
+        return person;
+    }
+}
@@ -0,0 +1,94 @@
+package org.lab1.importer;
+
+import org.junit.jupiter.api.Test;
+import org.lab1.dto.MovieDto;
+import org.lab1.repository.MovieRepository;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieNameCheckerTest {
+
+    private final MovieRepository movieRepository = mock(MovieRepository.class);
+
+    @Test
+    void duplicatesWithinFileAreToldApartFromExistingMovies() {
+        when(movieRepository.findExistingNameKeys(any())).thenReturn(List.of("heat"));
+        MovieNameChecker checker = new MovieNameChecker(movieRepository, 100);
+
+        String[] first = new String[2];
+        checker.check(chunk("Alien", "Heat"), first);
+        String[] second = new String[3];
+        checker.check(chunk("ALIEN", "Heat", "Up"), second);
+
+        assertNull(first[0]);
+        assertEquals("name: movie 'Heat' already exists", first[1]);
+        assertEquals("name: 'ALIEN' occurs earlier in the file", second[0]);
+        // Уже существующее название не занимает место в файле, повтор снова сверяется с базой
+        assertEquals("name: movie 'Heat' already exists", second[1]);
+        assertNull(second[2]);
+    }
+
+    @Test
+    void databaseIsQueriedOnlyForNamesNotSeenInFile() {
+        when(movieRepository.findExistingNameKeys(any())).thenReturn(List.of());
+        MovieNameChecker checker = new MovieNameChecker(movieRepository, 100);
+
+        checker.check(chunk("Alien", "Heat"), new String[2]);
+        checker.check(chunk("alien", "Up", "Up"), new String[3]);
+
+        ArgumentCaptor<String[]> keys = ArgumentCaptor.forClass(String[].class);
+        verify(movieRepository, times(2)).findExistingNameKeys(keys.capture());
+        assertArrayEquals(new String[]{"up"}, keys.getAllValues().get(1));
+    }
+
+    @Test
+    void invalidItemsDoNotTakeName() {
+        when(movieRepository.findExistingNameKeys(any())).thenReturn(List.of());
+        MovieNameChecker checker = new MovieNameChecker(movieRepository, 100);
+
+        String[] errors = {"budget: must be greater than 0", null};
+        checker.check(chunk("Alien", "Alien"), errors);
+
+        assertEquals("budget: must be greater than 0", errors[0]);
+        assertNull(errors[1]);
+    }
+
+    @Test
+    void namesBeyondLimitAreCheckedInDatabaseOnly() {
+        when(movieRepository.findExistingNameKeys(any())).thenReturn(List.of());
+        MovieNameChecker checker = new MovieNameChecker(movieRepository, 1);
+
+        checker.check(chunk("Alien"), new String[1]);
+        checker.check(chunk("Heat"), new String[1]);
+        String[] errors = new String[2];
+        checker.check(chunk("Alien", "Heat"), errors);
+
+        assertEquals("name: 'Alien' occurs earlier in the file", errors[0]);
+        // Набор заполнен, повтор "Heat" ищется в базе
+        assertNull(errors[1]);
+        ArgumentCaptor<String[]> keys = ArgumentCaptor.forClass(String[].class);
+        verify(movieRepository, times(3)).findExistingNameKeys(keys.capture());
+        assertArrayEquals(new String[]{"heat"}, keys.getAllValues().get(2));
+    }
+
+    private static List<MovieDto> chunk(String... names) {
+        List<MovieDto> chunk = new ArrayList<>();
+        for (String name : names) {
+            MovieDto movie = new MovieDto();
+            movie.setName(name);
+            chunk.add(movie);
+        }
+        return chunk;
+    }
+}
@@ -0,0 +1,150 @@
+package org.lab1.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.lab1.PostgresTestDatabase;
+import org.lab1.enums.Color;
+import org.lab1.enums.MovieGenre;
+import org.lab1.enums.MpaaRating;
+import org.lab1.model.Coordinates;
+import org.lab1.model.Movie;
+import org.lab1.model.Person;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIf("org.lab1.PostgresTestDatabase#available")
+class MovieBulkOperationsTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        PostgresTestDatabase.register(registry);
+    }
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void redistributeOscarsSplitsTotalAndGivesRemainderToLowestIds() {
+        Movie drama1 = persist(movie("Drama 1", MovieGenre.DRAMA, 3));
+        Movie drama2 = persist(movie("Drama 2", MovieGenre.DRAMA, 4));
+        Movie drama3 = persist(movie("Drama 3", MovieGenre.DRAMA, null));
+        Movie comedy1 = persist(movie("Comedy 1", MovieGenre.COMEDY, null));
+        Movie comedy2 = persist(movie("Comedy 2", MovieGenre.COMEDY, 1));
+        Movie comedy3 = persist(movie("Comedy 3", MovieGenre.COMEDY, null));
+        persist(movie("Musical", MovieGenre.MUSICAL, 5));
+
+        MovieBulkOperations.RedistributedOscars redistributed =
+                movieRepository.redistributeOscars(MovieGenre.DRAMA, MovieGenre.COMEDY);
+
+        assertEquals(7, redistributed.total());
+        // 7 / 3 = 2 каждому, остаток 1 - первому по id
+        assertEquals(3, oscarsOf(comedy1));
+        assertEquals(3, oscarsOf(comedy2));
+        assertEquals(2, oscarsOf(comedy3));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM movie WHERE genre = 'DRAMA' AND oscars_count IS NOT NULL", Integer.class));
+        // Изменены только фильмы с «Оскарами» исходного жанра и все фильмы целевого
+        assertEquals(Set.of(drama1.getId(), drama2.getId(), comedy1.getId(), comedy2.getId(), comedy3.getId()),
+                Set.copyOf(redistributed.movieIds()));
+        assertEquals(Set.copyOf(redistributed.movieIds()), Set.copyOf(jdbcTemplate.queryForList(
+                "SELECT id FROM movie WHERE version = 1", Integer.class)));
+        assertFalse(redistributed.movieIds().contains(drama3.getId()));
+    }
+
+    @Test
+    void redistributeOscarsWithoutTargetsChangesNothing() {
+        Movie drama = persist(movie("Lonely drama", MovieGenre.DRAMA, 3));
+
+        MovieBulkOperations.RedistributedOscars redistributed =
+                movieRepository.redistributeOscars(MovieGenre.DRAMA, MovieGenre.MUSICAL);
+
+        assertEquals(0, redistributed.total());
+        assertEquals(List.of(), redistributed.movieIds());
+        assertEquals(3, oscarsOf(drama));
+    }
+
+    @Test
+    void deleteByGenreRemovesMoviesWithTheirCoordinates() {
+        Movie drama1 = movie("Drama 1", MovieGenre.DRAMA, 1);
+        drama1.setGoldenPalmCount(2);
+        Movie drama2 = movie("Drama 2", MovieGenre.DRAMA, 1);
+        drama2.setGoldenPalmCount(5);
+        persist(drama1);
+        persist(drama2);
+        Movie comedy = persist(movie("Comedy", MovieGenre.COMEDY, 1));
+
+        MovieBulkOperations.DeletedMovies deleted = movieRepository.deleteByGenreInBulk(MovieGenre.DRAMA);
+
+        assertEquals(2, deleted.count());
+        assertEquals(7, deleted.goldenPalmSum());
+        assertEquals(List.of(comedy.getId()), jdbcTemplate.queryForList("SELECT id FROM movie", Integer.class));
+        assertEquals(List.of(comedy.getCoordinates().getId()),
+                jdbcTemplate.queryForList("SELECT id FROM coordinates", Integer.class));
+        // Люди не принадлежат фильму и остаются
+        assertEquals(6, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM person", Integer.class));
+    }
+
+    @Test
+    void deleteByGenreWithoutMoviesReturnsZero() {
+        persist(movie("Comedy", MovieGenre.COMEDY, 1));
+
+        MovieBulkOperations.DeletedMovies deleted = movieRepository.deleteByGenreInBulk(MovieGenre.DRAMA);
+
+        assertEquals(0, deleted.count());
+        assertEquals(0, deleted.goldenPalmSum());
+    }
+
+    private Movie persist(Movie movie) {
+        return entityManager.persistAndFlush(movie);
+    }
+
+    private Integer oscarsOf(Movie movie) {
+        return jdbcTemplate.queryForObject("SELECT oscars_count FROM movie WHERE id = ?", Integer.class, movie.getId());
+    }
+
+    private static Movie movie(String name, MovieGenre genre, Integer oscars) {
+        Coordinates coordinates = new Coordinates();
+        coordinates.setX(1.5f);
+        coordinates.setY(2);
+
+        Movie movie = new Movie();
+        movie.setName(name);
+        movie.setCoordinates(coordinates);
+        movie.setOscarsCount(oscars);
+        movie.setBudget(1000f);
+        movie.setTotalBoxOffice(5000L);
+        movie.setMpaaRating(MpaaRating.PG_13);
+        movie.setDirector(person("Director of " + name));
+        movie.setOperator(person("Operator of " + name));
+        movie.setGoldenPalmCount(1);
+        movie.setTagline("Tagline of " + name);
+        movie.setGenre(genre);
+        return movie;
+    }
+
+    private static Person person(String name) {
+        Person person = new Person();
+        person.setName(name);
+        person.setEyeColor(Color.GREEN);
+        return person;
+    }
+}
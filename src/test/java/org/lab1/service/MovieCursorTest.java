@@ -0,0 +1,67 @@
+package org.lab1.service;
+
+import org.junit.jupiter.api.Test;
+import org.lab1.exception.InvalidCursorException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieCursorTest {
+
+    @Test
+    void firstPageDefaultsToIdAscending() {
+        MovieCursor cursor = MovieCursor.first(Sort.unsorted());
+
+        assertEquals(Sort.by(Sort.Direction.ASC, "id"), cursor.sort());
+        assertTrue(cursor.position().isInitial());
+    }
+
+    @Test
+    void sortByNameUsesIdAsTieBreaker() {
+        MovieCursor cursor = MovieCursor.first(Sort.by(Sort.Direction.DESC, "name"));
+
+        assertEquals(Sort.by(Sort.Direction.DESC, "name").and(Sort.by(Sort.Direction.DESC, "id")), cursor.sort());
+    }
+
+    @Test
+    void onlyOneIndexedSortFieldIsAccepted() {
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.first(Sort.by("tagline")));
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.first(Sort.by("name", "id")));
+    }
+
+    @Test
+    void tokenRoundTripsLastKeys() {
+        Map<String, Object> lastKeys = new LinkedHashMap<>();
+        lastKeys.put("name", "Alien");
+        lastKeys.put("id", 42);
+        MovieCursor cursor = MovieCursor.first(Sort.by(Sort.Direction.DESC, "name")).after(lastKeys);
+
+        MovieCursor decoded = MovieCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+        KeysetScrollPosition position = assertInstanceOf(KeysetScrollPosition.class, decoded.position());
+        assertEquals(lastKeys, position.getKeys());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.decode("not a cursor!"));
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.decode(token("[1, 2]")));
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.decode(token("{\"f\":\"budget\",\"d\":\"ASC\",\"k\":{}}")));
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.decode(token("{\"f\":\"id\",\"d\":\"UP\",\"k\":{}}")));
+        assertThrows(InvalidCursorException.class, () -> MovieCursor.decode(token("{\"f\":\"id\",\"d\":\"ASC\"}")));
+    }
+
+    private static String token(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
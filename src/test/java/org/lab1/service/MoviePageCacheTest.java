@@ -0,0 +1,146 @@
+package org.lab1.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lab1.dto.MovieDto;
+import org.lab1.dto.PersonDto;
+import org.lab1.enums.MovieGenre;
+import org.lab1.repository.MovieBulkOperations;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoviePageCacheTest {
+
+    private MoviePageCache cache;
+
+    @BeforeEach
+    void createCache() {
+        cache = new MoviePageCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        cache.init();
+    }
+
+    @Test
+    void updateInvalidatesPagesMatchingNewOrPreviousState() {
+        load(null, null, null);
+        load(null, "DRAMA", null);
+        load(null, "COMEDY", null);
+        load(null, "MUSICAL", null);
+        load("ALIEN", null, null);
+        load("Other", null, null);
+        load(null, null, "scott");
+        load(null, null, "Nolan");
+
+        cache.onMovieEvent(new SseEvent("movie-updated",
+                movie("Alien", MovieGenre.DRAMA, "Scott"), movie("Alien", MovieGenre.COMEDY, "Scott")));
+
+        assertFalse(isCached(null, null, null));
+        assertFalse(isCached(null, "DRAMA", null));
+        assertFalse(isCached(null, "COMEDY", null));
+        assertTrue(isCached(null, "MUSICAL", null));
+        assertFalse(isCached("ALIEN", null, null));
+        assertTrue(isCached("Other", null, null));
+        assertFalse(isCached(null, null, "scott"));
+        assertTrue(isCached(null, null, "Nolan"));
+    }
+
+    @Test
+    void deletionMatchesThePreviousState() {
+        load(null, "DRAMA", null);
+        load(null, "COMEDY", null);
+
+        cache.onMovieEvent(new SseEvent("movie-deleted", 7, movie("Alien", MovieGenre.DRAMA, "Scott")));
+
+        assertFalse(isCached(null, "DRAMA", null));
+        assertTrue(isCached(null, "COMEDY", null));
+    }
+
+    @Test
+    void deletionByGenreKeepsPagesOfOtherGenres() {
+        load(null, null, null);
+        load(null, "drama", null);
+        load(null, "COMEDY", null);
+
+        cache.onMovieEvent(new SseEvent("movies-deleted-by-genre", Map.of("genre", "DRAMA", "deleted", 2)));
+
+        assertFalse(isCached(null, null, null));
+        assertFalse(isCached(null, "drama", null));
+        assertTrue(isCached(null, "COMEDY", null));
+    }
+
+    @Test
+    void redistributionInvalidatesBothGenres() {
+        load(null, null, null);
+        load(null, "DRAMA", null);
+        load(null, "COMEDY", null);
+        load(null, "MUSICAL", null);
+
+        cache.onMovieEvent(new SseEvent("oscars-redistributed", "Oscars redistributed from DRAMA to COMEDY",
+                new MovieBulkOperations.RedistributedOscars(7, MovieGenre.DRAMA, MovieGenre.COMEDY, List.of(1, 2))));
+
+        assertFalse(isCached(null, null, null));
+        assertFalse(isCached(null, "DRAMA", null));
+        assertFalse(isCached(null, "COMEDY", null));
+        assertTrue(isCached(null, "MUSICAL", null));
+    }
+
+    @Test
+    void importInvalidatesEverything() {
+        load(null, "MUSICAL", null);
+        load("Other", null, null);
+
+        cache.onMovieEvent(new SseEvent("movies-imported", 10));
+
+        assertFalse(isCached(null, "MUSICAL", null));
+        assertFalse(isCached("Other", null, null));
+    }
+
+    @Test
+    void pageLoadedDuringInvalidationIsNotCached() {
+        cache.get(null, null, null, PageRequest.of(0, 10), () -> {
+            cache.onMovieEvent(new SseEvent("movies-imported", 1));
+            return emptyPage();
+        });
+
+        assertFalse(isCached(null, null, null));
+    }
+
+    private void load(String name, String genre, String director) {
+        cache.get(name, genre, director, PageRequest.of(0, 10), MoviePageCacheTest::emptyPage);
+    }
+
+    /**
+     * Была ли страница в кэше; после проверки она там в любом случае.
+     */
+    private boolean isCached(String name, String genre, String director) {
+        boolean[] loaded = {false};
+        cache.get(name, genre, director, PageRequest.of(0, 10), () -> {
+            loaded[0] = true;
+            return emptyPage();
+        });
+        return !loaded[0];
+    }
+
+    private static Page<MovieJson> emptyPage() {
+        return new PageImpl<>(List.of());
+    }
+
+    private static MovieDto movie(String name, MovieGenre genre, String director) {
+        PersonDto person = new PersonDto();
+        person.setName(director);
+        MovieDto dto = new MovieDto();
+        dto.setName(name);
+        dto.setGenre(genre);
+        dto.setDirector(person);
+        return dto;
+    }
+}